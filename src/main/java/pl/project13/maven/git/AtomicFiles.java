@@ -0,0 +1,169 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import pl.project13.core.log.LogInterface;
+
+/**
+ * Writes files that are shared by concurrent executions (e.g. the generated properties file, the
+ * incremental snapshot or the measured provider timings): a file is written through a temporary
+ * file that atomically replaces it, so readers never see a partially written file, and a
+ * read-modify-write of a file can be serialized by a lock within the JVM and a {@link
+ * FileChannel} lock across processes.
+ */
+final class AtomicFiles {
+  private static final Map<Path, Object> LOCKS = new ConcurrentHashMap<>();
+
+  private AtomicFiles() {}
+
+  /** The work that is done while holding the lock of a file. */
+  interface LockedAction<T> {
+    T run() throws IOException;
+  }
+
+  /**
+   * Writes the content to a temporary file in the same directory that then replaces the target.
+   *
+   * @param target The file to write.
+   * @param content The content of the file.
+   * @throws IOException if the file can't be written.
+   */
+  static void write(@Nonnull Path target, @Nonnull byte[] content) throws IOException {
+    Path directory = target.toAbsolutePath().getParent();
+    Files.createDirectories(directory);
+    Path temp = Files.createTempFile(directory, "." + target.getFileName(), ".tmp");
+    try {
+      Files.write(temp, content);
+      try {
+        Files.move(
+            temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * Runs the action while holding the lock of the target. Executions of this JVM wait for the lock
+   * within the JVM, other processes for the lock of the lock file.
+   *
+   * @param target The file the action reads and writes.
+   * @param log The logger to report a lock file that can't be locked.
+   * @param action The action.
+   * @return The result of the action.
+   * @throws IOException if the action fails.
+   */
+  static <T> T withLock(
+      @Nonnull Path target, @Nonnull LogInterface log, @Nonnull LockedAction<T> action)
+      throws IOException {
+    Path lockFile = lockFile(target.toAbsolutePath().normalize());
+    synchronized (LOCKS.computeIfAbsent(lockFile, f -> new Object())) {
+      FileChannel lock = lockAcrossProcesses(lockFile, log);
+      try {
+        return action.run();
+      } finally {
+        unlock(lockFile, lock);
+      }
+    }
+  }
+
+  /**
+   * The file that is locked while the target is written: {@code <target>.lock} next to the target.
+   * It only exists while the lock is held.
+   */
+  static Path lockFile(Path target) {
+    return target.resolveSibling(target.getFileName() + ".lock");
+  }
+
+  /**
+   * Locks the lock file against other processes (e.g. other builds that target the same file).
+   * Since the owner deletes the lock file before releasing the lock, a waiting process may acquire
+   * the lock of a file that no longer exists. Every owner therefore writes a token to the locked
+   * file and only keeps the lock if the token can be read back through the path; otherwise it
+   * tries again with the file that is now at the path.
+   *
+   * @return The locked channel or {@code null} if the lock file can't be locked, then only
+   *     executions of the same JVM are coordinated.
+   */
+  @Nullable
+  private static FileChannel lockAcrossProcesses(Path lockFile, LogInterface log) {
+    byte[] token = UUID.randomUUID().toString().getBytes(StandardCharsets.US_ASCII);
+    try {
+      while (true) {
+        FileChannel channel =
+            FileChannel.open(
+                lockFile,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        boolean owned = false;
+        try {
+          // lock a region behind the token, so the token stays readable on every platform
+          channel.lock(Long.MAX_VALUE - 1, 1, false);
+          channel.truncate(0).write(ByteBuffer.wrap(token), 0);
+          owned = Arrays.equals(token, Files.readAllBytes(lockFile));
+        } catch (NoSuchFileException e) {
+          // deleted by the previous owner, try again with a new file
+        } finally {
+          if (!owned) {
+            channel.close();
+          }
+        }
+        if (owned) {
+          return channel;
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      log.debug("Cannot lock " + lockFile + ": " + e.getMessage());
+      return null;
+    }
+  }
+
+  /** Deletes the lock file while still holding its lock, then releases the lock. */
+  private static void unlock(Path lockFile, @Nullable FileChannel lock) throws IOException {
+    if (lock == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(lockFile);
+    } catch (IOException e) {
+      // e.g. an open file can't be deleted on some platforms, the next owner reuses it
+    } finally {
+      lock.close();
+    }
+  }
+}
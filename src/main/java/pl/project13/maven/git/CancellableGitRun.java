@@ -0,0 +1,242 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.Nonnull;
+import pl.project13.core.GitCommitIdExecutionException;
+import pl.project13.core.log.LogInterface;
+
+/**
+ * Runs a git provider with a wall-clock budget. The provider runs on a separate (daemon) thread,
+ * the calling thread stops waiting once the budget is exhausted and the run gets cancelled.
+ *
+ * <p>JGit itself has no notion of a timeout, therefore the cancellation is cooperative: the worker
+ * thread is interrupted (which aborts any interruptible I/O) and every callback from the plugin
+ * core into the mojo checks whether the run was cancelled (see {@link #checkCancelled()}). The core
+ * logs and calls back between the computation of each property, so a cancelled run stops at the
+ * next property at the latest. A cancelled run is never allowed to publish its (late) results.
+ */
+final class CancellableGitRun {
+  /** The work that should be run with a budget. */
+  interface Task {
+    void run() throws GitCommitIdExecutionException;
+  }
+
+  private final Object lock = new Object();
+  private volatile boolean cancelled = false;
+  private volatile Thread worker = null;
+  private final AtomicBoolean started = new AtomicBoolean(false);
+  private final CompletableFuture<Void> stopped = new CompletableFuture<>();
+  private ExecutorService executor = null;
+  private Future<Void> future = null;
+
+  /**
+   * Runs the task and waits at most {@code timeoutInMs} for it to finish.
+   *
+   * @param task The task to run.
+   * @param timeoutInMs The budget in milliseconds (a value {@code <= 0} disables the budget and
+   *     runs the task on the calling thread).
+   * @return {@code true} if the task finished, {@code false} if it was cancelled.
+   * @throws GitCommitIdExecutionException if the task failed.
+   */
+  boolean run(@Nonnull Task task, long timeoutInMs) throws GitCommitIdExecutionException {
+    if (timeoutInMs <= 0) {
+      task.run();
+      return true;
+    }
+    start(task);
+    return await(timeoutInMs);
+  }
+
+  /**
+   * Starts the task on a separate (daemon) thread without waiting for it. Must be followed by
+   * either {@link #await(long)} or {@link #cancel()}.
+   *
+   * @param task The task to run.
+   */
+  void start(@Nonnull Task task) {
+    executor =
+        Executors.newSingleThreadExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "git-commit-id-git-run");
+              thread.setDaemon(true);
+              return thread;
+            });
+    future =
+        executor.submit(
+            () -> {
+              if (!started.compareAndSet(false, true)) {
+                // cancelled before it started
+                return null;
+              }
+              worker = Thread.currentThread();
+              try {
+                task.run();
+              } finally {
+                stopped.complete(null);
+              }
+              return null;
+            });
+  }
+
+  /**
+   * Runs the action once the started task has stopped, that is immediately if it already finished
+   * (or was never started) or, for a cancelled task that is still running, on the worker thread
+   * once it reached the next cancellation point. Allows to keep resources the worker still uses
+   * (e.g. a permit of the {@link GitWorkScheduler}) until it has stopped.
+   *
+   * @param action The action.
+   */
+  void whenStopped(@Nonnull Runnable action) {
+    if (started.compareAndSet(false, true)) {
+      stopped.complete(null);
+    }
+    stopped.thenRun(action);
+  }
+
+  /**
+   * Waits at most {@code timeoutInMs} for the started task to finish and cancels it otherwise.
+   *
+   * @param timeoutInMs The remaining budget in milliseconds.
+   * @return {@code true} if the task finished, {@code false} if it was cancelled.
+   * @throws GitCommitIdExecutionException if the task failed.
+   */
+  boolean await(long timeoutInMs) throws GitCommitIdExecutionException {
+    try {
+      future.get(Math.max(timeoutInMs, 0), TimeUnit.MILLISECONDS);
+      return true;
+    } catch (TimeoutException e) {
+      cancel();
+      return false;
+    } catch (InterruptedException e) {
+      cancel();
+      Thread.currentThread().interrupt();
+      throw new GitCommitIdExecutionException("Interrupted while waiting for git", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof GitCommitIdExecutionException) {
+        throw (GitCommitIdExecutionException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new GitCommitIdExecutionException(cause.getMessage(), cause);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /** Cancels the started task (if it is still running). */
+  void cancel() {
+    synchronized (lock) {
+      cancelled = true;
+    }
+    if (future != null) {
+      future.cancel(true);
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Aborts the current thread if it is the worker of a cancelled run. Does nothing on any other
+   * thread, so the calling thread can still use the same callbacks once the run was cancelled.
+   *
+   * @throws CancellationException if the current thread belongs to a cancelled run.
+   */
+  void checkCancelled() {
+    if (cancelled && Thread.currentThread() == worker) {
+      throw new CancellationException("The git run exceeded its time budget");
+    }
+  }
+
+  /**
+   * Runs the action unless the current thread belongs to a cancelled run. The check and the
+   * action are atomic with regard to the cancellation, so a run that gets cancelled concurrently
+   * either completes the action before or not at all.
+   *
+   * @param action The action (e.g. publishing the properties).
+   * @throws CancellationException if the current thread belongs to a cancelled run.
+   */
+  void runIfNotCancelled(@Nonnull Runnable action) {
+    synchronized (lock) {
+      checkCancelled();
+      action.run();
+    }
+  }
+
+  /**
+   * Wraps the log so that each log statement of the plugin core acts as a cancellation point.
+   *
+   * @param log The log to wrap.
+   * @return The wrapped log.
+   */
+  LogInterface cancellationPoints(@Nonnull LogInterface log) {
+    return new LevelAwareLog() {
+      @Override
+      public boolean isDebugEnabled() {
+        return LevelAwareLog.isDebugEnabled(log);
+      }
+
+      @Override
+      public boolean isInfoEnabled() {
+        return LevelAwareLog.isInfoEnabled(log);
+      }
+
+      @Override
+      public void debug(String msg) {
+        checkCancelled();
+        log.debug(msg);
+      }
+
+      @Override
+      public void info(String msg) {
+        checkCancelled();
+        log.info(msg);
+      }
+
+      @Override
+      public void warn(String msg) {
+        checkCancelled();
+        log.warn(msg);
+      }
+
+      @Override
+      public void error(String msg) {
+        checkCancelled();
+        log.error(msg);
+      }
+
+      @Override
+      public void error(String msg, Throwable t) {
+        checkCancelled();
+        log.error(msg, t);
+      }
+    };
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * An immutable snapshot of properties, backed by two arrays sorted by key. Unlike {@link
+ * Properties} (a synchronized {@link java.util.Hashtable}) lookups and iteration need no lock and
+ * no per-entry objects, and a snapshot can be shared between threads and modules without copying.
+ *
+ * <p>The plugin core works on {@link Properties}, so a snapshot is taken once the core hands the
+ * properties over and converted back with {@link #toProperties()} wherever a mutable copy is
+ * needed.
+ */
+final class CompactProperties {
+  private static final CompactProperties EMPTY =
+      new CompactProperties(new String[0], new String[0]);
+
+  private final String[] keys;
+  private final String[] values;
+
+  private CompactProperties(String[] keys, String[] values) {
+    this.keys = keys;
+    this.values = values;
+  }
+
+  /**
+   * Takes a snapshot of the properties.
+   *
+   * @param properties The properties (only entries with {@link String} keys and values are taken).
+   * @return The snapshot.
+   */
+  static CompactProperties of(@Nonnull Properties properties) {
+    Set<String> names = properties.stringPropertyNames();
+    if (names.isEmpty()) {
+      return EMPTY;
+    }
+    String[] keys = names.toArray(new String[0]);
+    Arrays.sort(keys);
+    String[] values = new String[keys.length];
+    int size = 0;
+    for (String key : keys) {
+      String value = properties.getProperty(key);
+      // the properties might have changed concurrently
+      if (value != null) {
+        keys[size] = key;
+        values[size] = value;
+        size++;
+      }
+    }
+    if (size < keys.length) {
+      keys = Arrays.copyOf(keys, size);
+      values = Arrays.copyOf(values, size);
+    }
+    return new CompactProperties(keys, values);
+  }
+
+  int size() {
+    return keys.length;
+  }
+
+  boolean isEmpty() {
+    return keys.length == 0;
+  }
+
+  /**
+   * Looks up the value of a key.
+   *
+   * @param key The key.
+   * @return The value or {@code null} if the key is not present.
+   */
+  @Nullable
+  String get(@Nonnull String key) {
+    int index = Arrays.binarySearch(keys, key);
+    return index >= 0 ? values[index] : null;
+  }
+
+  /**
+   * Calls the action for every entry in the order of the keys.
+   *
+   * @param action The action.
+   */
+  void forEach(@Nonnull BiConsumer<String, String> action) {
+    for (int i = 0; i < keys.length; i++) {
+      action.accept(keys[i], values[i]);
+    }
+  }
+
+  /**
+   * Converts the snapshot back into (mutable) properties.
+   *
+   * @return A new {@link Properties} instance with all entries of the snapshot.
+   */
+  Properties toProperties() {
+    Properties properties = new Properties();
+    forEach(properties::setProperty);
+    return properties;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof CompactProperties)) {
+      return false;
+    }
+    CompactProperties other = (CompactProperties) o;
+    return Arrays.equals(keys, other.keys) && Arrays.equals(values, other.values);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Arrays.hashCode(keys) + Arrays.hashCode(values);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{");
+    forEach(
+        (key, value) -> {
+          if (sb.length() > 1) {
+            sb.append(", ");
+          }
+          sb.append(key).append('=').append(value);
+        });
+    return sb.append('}').toString();
+  }
+}
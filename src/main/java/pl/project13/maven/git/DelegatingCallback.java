@@ -0,0 +1,194 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Supplier;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import pl.project13.core.CommitIdGenerationMode;
+import pl.project13.core.CommitIdPropertiesOutputFormat;
+import pl.project13.core.GitCommitIdExecutionException;
+import pl.project13.core.GitCommitIdPlugin;
+import pl.project13.core.git.GitDescribeConfig;
+import pl.project13.core.log.LogInterface;
+import pl.project13.core.util.BuildFileChangeListener;
+
+/**
+ * A {@link GitCommitIdPlugin.Callback} that forwards every call to another callback. Subclasses
+ * override the calls they want to change, e.g. to run the plugin core for a subset of the
+ * properties.
+ */
+class DelegatingCallback implements GitCommitIdPlugin.Callback {
+  private final GitCommitIdPlugin.Callback delegate;
+
+  DelegatingCallback(@Nonnull GitCommitIdPlugin.Callback delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public Map<String, String> getSystemEnv() {
+    return delegate.getSystemEnv();
+  }
+
+  @Override
+  public Supplier<String> supplyProjectVersion() {
+    return delegate.supplyProjectVersion();
+  }
+
+  @Nonnull
+  @Override
+  public LogInterface getLogInterface() {
+    return delegate.getLogInterface();
+  }
+
+  @Nonnull
+  @Override
+  public String getDateFormat() {
+    return delegate.getDateFormat();
+  }
+
+  @Nonnull
+  @Override
+  public String getDateFormatTimeZone() {
+    return delegate.getDateFormatTimeZone();
+  }
+
+  @Nonnull
+  @Override
+  public String getPrefixDot() {
+    return delegate.getPrefixDot();
+  }
+
+  @Override
+  public List<String> getExcludeProperties() {
+    return delegate.getExcludeProperties();
+  }
+
+  @Override
+  public List<String> getIncludeOnlyProperties() {
+    return delegate.getIncludeOnlyProperties();
+  }
+
+  @Nullable
+  @Override
+  public Date getReproducibleBuildOutputTimestamp() throws GitCommitIdExecutionException {
+    return delegate.getReproducibleBuildOutputTimestamp();
+  }
+
+  @Override
+  public boolean useNativeGit() {
+    return delegate.useNativeGit();
+  }
+
+  @Override
+  public long getNativeGitTimeoutInMs() {
+    return delegate.getNativeGitTimeoutInMs();
+  }
+
+  @Override
+  public int getAbbrevLength() {
+    return delegate.getAbbrevLength();
+  }
+
+  @Override
+  public GitDescribeConfig getGitDescribe() {
+    return delegate.getGitDescribe();
+  }
+
+  @Override
+  public CommitIdGenerationMode getCommitIdGenerationMode() {
+    return delegate.getCommitIdGenerationMode();
+  }
+
+  @Override
+  public boolean getUseBranchNameFromBuildEnvironment() {
+    return delegate.getUseBranchNameFromBuildEnvironment();
+  }
+
+  @Override
+  public boolean isOffline() {
+    return delegate.isOffline();
+  }
+
+  @Override
+  public String getEvaluateOnCommit() {
+    return delegate.getEvaluateOnCommit();
+  }
+
+  @Override
+  public File getDotGitDirectory() {
+    return delegate.getDotGitDirectory();
+  }
+
+  @Override
+  public boolean shouldGenerateGitPropertiesFile() {
+    return delegate.shouldGenerateGitPropertiesFile();
+  }
+
+  @Override
+  public void performPublishToAllSystemEnvironments(Properties properties) {
+    delegate.performPublishToAllSystemEnvironments(properties);
+  }
+
+  @Override
+  public void performPropertiesReplacement(Properties properties) {
+    delegate.performPropertiesReplacement(properties);
+  }
+
+  @Override
+  public CommitIdPropertiesOutputFormat getPropertiesOutputFormat() {
+    return delegate.getPropertiesOutputFormat();
+  }
+
+  @Override
+  public BuildFileChangeListener getBuildFileChangeListener() {
+    return delegate.getBuildFileChangeListener();
+  }
+
+  @Override
+  public String getProjectName() {
+    return delegate.getProjectName();
+  }
+
+  @Override
+  public File getProjectBaseDir() {
+    return delegate.getProjectBaseDir();
+  }
+
+  @Override
+  public File getGenerateGitPropertiesFile() {
+    return delegate.getGenerateGitPropertiesFile();
+  }
+
+  @Override
+  public Charset getPropertiesSourceCharset() {
+    return delegate.getPropertiesSourceCharset();
+  }
+
+  @Override
+  public boolean shouldPropertiesEscapeUnicode() {
+    return delegate.shouldPropertiesEscapeUnicode();
+  }
+}
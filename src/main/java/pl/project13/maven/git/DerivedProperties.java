@@ -0,0 +1,195 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import pl.project13.core.log.LogInterface;
+
+/**
+ * Computes the {@code derivedProperties}: properties that are assembled from the generated
+ * properties with a template like {@code @{git.branch}-@{git.commit.id.abbrev}}. Each template is
+ * compiled once per scope (e.g. the Maven session) into a list of literal parts and property keys,
+ * so deriving a property is a single concatenation.
+ *
+ * <p>The references use the late-binding syntax {@code @{key}} (like the {@code argLine} of the
+ * {@code maven-surefire-plugin}), which Maven does not interpolate in the plugin configuration. A
+ * template may also reference other derived properties. A reference that can't be resolved is
+ * kept as is.
+ */
+final class DerivedProperties {
+  private static final String REFERENCE_START = "@{";
+  private static final Map<Object, Map<String, Template>> TEMPLATES = new WeakHashMap<>();
+
+  private final Map<String, Template> templates;
+
+  private DerivedProperties(Map<String, Template> templates) {
+    this.templates = templates;
+  }
+
+  /**
+   * Compiles the configured templates.
+   *
+   * @param scope The scope the compiled templates are shared in (e.g. the Maven request).
+   * @param derivedProperties The configured templates (property name to template).
+   * @return The compiled templates or {@code null} if none are configured.
+   */
+  @Nullable
+  static DerivedProperties compile(
+      @Nonnull Object scope, @Nullable Map<String, String> derivedProperties) {
+    if (derivedProperties == null || derivedProperties.isEmpty()) {
+      return null;
+    }
+    Map<String, Template> compiled;
+    synchronized (TEMPLATES) {
+      compiled = TEMPLATES.computeIfAbsent(scope, s -> new ConcurrentHashMap<>());
+    }
+    Map<String, Template> templates = new LinkedHashMap<>();
+    for (Map.Entry<String, String> entry : derivedProperties.entrySet()) {
+      String template = entry.getValue() == null ? "" : entry.getValue();
+      templates.put(entry.getKey(), compiled.computeIfAbsent(template, Template::parse));
+    }
+    return new DerivedProperties(templates);
+  }
+
+  /**
+   * Computes all derived properties and puts them into the properties.
+   *
+   * @param properties The generated properties.
+   * @param fallback Looks up properties that are not part of the generated properties (e.g. lazy
+   *     properties), may return {@code null}.
+   * @param log The logger to report unresolved references.
+   */
+  void derive(
+      @Nonnull Properties properties,
+      @Nonnull Function<String, String> fallback,
+      @Nonnull LogInterface log) {
+    Map<String, String> derived = new LinkedHashMap<>();
+    for (String name : templates.keySet()) {
+      resolve(name, properties, fallback, log, derived, new HashSet<>());
+    }
+    derived.forEach(properties::setProperty);
+  }
+
+  Template template(String name) {
+    return templates.get(name);
+  }
+
+  @Nullable
+  private String resolve(
+      String name,
+      Properties properties,
+      Function<String, String> fallback,
+      LogInterface log,
+      Map<String, String> derived,
+      Set<String> resolving) {
+    String value = derived.get(name);
+    if (value != null) {
+      return value;
+    }
+    if (!resolving.add(name)) {
+      log.warn("derivedProperties: '" + name + "' has a cyclic reference");
+      return null;
+    }
+    value =
+        templates
+            .get(name)
+            .render(
+                key -> {
+                  if (templates.containsKey(key)) {
+                    return resolve(key, properties, fallback, log, derived, resolving);
+                  }
+                  String property = properties.getProperty(key);
+                  if (property == null) {
+                    property = fallback.apply(key);
+                  }
+                  if (property == null) {
+                    log.warn(
+                        "derivedProperties: '" + name + "' references the unknown '" + key + "'");
+                  }
+                  return property;
+                });
+    resolving.remove(name);
+    derived.put(name, value);
+    return value;
+  }
+
+  /** A template compiled into its literal parts and the property keys between them. */
+  static final class Template {
+    private final String[] literals;
+    private final String[] keys;
+
+    private Template(String[] literals, String[] keys) {
+      this.literals = literals;
+      this.keys = keys;
+    }
+
+    static Template parse(String template) {
+      List<String> literals = new ArrayList<>();
+      List<String> keys = new ArrayList<>();
+      int literalStart = 0;
+      int start = template.indexOf(REFERENCE_START);
+      while (start >= 0) {
+        int end = template.indexOf('}', start + 2);
+        if (end < 0) {
+          break;
+        }
+        literals.add(template.substring(literalStart, start));
+        keys.add(template.substring(start + 2, end).trim());
+        literalStart = end + 1;
+        start = template.indexOf(REFERENCE_START, literalStart);
+      }
+      literals.add(template.substring(literalStart));
+      return new Template(literals.toArray(new String[0]), keys.toArray(new String[0]));
+    }
+
+    /**
+     * Renders the template.
+     *
+     * @param lookup Looks up the value of a key, may return {@code null} to keep the reference.
+     * @return The rendered template.
+     */
+    String render(Function<String, String> lookup) {
+      if (keys.length == 0) {
+        return literals[0];
+      }
+      StringBuilder result = new StringBuilder(literals[0]);
+      for (int i = 0; i < keys.length; i++) {
+        String value = lookup.apply(keys[i]);
+        if (value == null) {
+          result.append(REFERENCE_START).append(keys[i]).append('}');
+        } else {
+          result.append(value);
+        }
+        result.append(literals[i + 1]);
+      }
+      return result.toString();
+    }
+  }
+}
@@ -19,17 +19,23 @@
 package pl.project13.maven.git;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -50,6 +56,8 @@ import pl.project13.core.CommitIdPropertiesOutputFormat;
 import pl.project13.core.GitCommitIdExecutionException;
 import pl.project13.core.GitCommitIdPlugin;
 import pl.project13.core.PropertiesFileGenerator;
+import pl.project13.core.PropertiesFilterer;
+import pl.project13.core.cibuild.BuildServerDataProvider;
 import pl.project13.core.git.GitDescribeConfig;
 import pl.project13.core.log.LogInterface;
 import pl.project13.core.util.BuildFileChangeListener;
@@ -63,6 +71,23 @@ import pl.project13.core.util.BuildFileChangeListener;
 public class GitCommitIdMojo extends AbstractMojo {
   private static final String CONTEXT_KEY = GitCommitIdMojo.class.getName() + ".properties";
 
+  /** The value of the properties that could not be computed in time (see jgitTimeoutPolicy). */
+  private static final String UNAVAILABLE = "unavailable";
+
+  /** The property groups that are computed on first access with {@link #lazyProperties}. */
+  private static final Set<GitPropertyGroup> LAZY_GROUPS =
+      EnumSet.of(
+          GitPropertyGroup.DESCRIBE,
+          GitPropertyGroup.DIRTY,
+          GitPropertyGroup.TAGS,
+          GitPropertyGroup.CLOSEST_TAG,
+          GitPropertyGroup.TOTAL_COMMIT_COUNT,
+          GitPropertyGroup.AHEAD_BEHIND);
+
+  /** The property groups that can be resolved by the {@link #directRead} mode. */
+  private static final Set<GitPropertyGroup> DIRECT_READ_GROUPS =
+      EnumSet.of(GitPropertyGroup.COMMIT_ID, GitPropertyGroup.BRANCH);
+
   // ===============================================================================================
   // Parameter injected by maven itself can't be configured in the pom.xml!
 
@@ -632,6 +657,153 @@ public class GitCommitIdMojo extends AbstractMojo {
   @Parameter(property = "maven.gitcommitid.nativegit", defaultValue = "false")
   boolean useNativeGitViaCommandLine;
 
+  /**
+   * Selects the git provider. Valid options are {@code jgit}, {@code native} and {@code auto}. When
+   * not set the provider is selected by {@link #useNativeGit} (and {@link
+   * #useNativeGitViaCommandLine}).
+   *
+   * <p>Neither provider is the fastest everywhere: {@code jgit} does not need to fork processes
+   * and usually wins on small repositories, whereas the native git executable wins on huge working
+   * trees and histories. With {@code auto} the plugin picks the provider per repository based on
+   * the number of index entries, the size of the packs and the number of refs. If {@link
+   * #gitProviderTimingsFile} is configured the measured durations are used instead, once both
+   * providers have been measured. Should the selected provider fail (e.g. because the native git
+   * executable is not installed or ran into the {@link #nativeGitTimeoutInMs}) the plugin retries
+   * with the other one. The retry is measured as well, while the failed run is recorded with a
+   * penalty, so a provider that keeps failing is no longer selected.
+   *
+   * <p>Example:
+   *
+   * <pre>{@code
+   * <gitProvider>auto</gitProvider>
+   * }</pre>
+   *
+   * @since 7.0.1
+   */
+  @Parameter String gitProvider;
+
+  /**
+   * The file in which the {@code auto} {@link #gitProvider} persists the measured durations of each
+   * provider. When not set the {@code auto} git provider only looks at the size of the repository.
+   *
+   * <p>Example:
+   *
+   * <pre>{@code
+   * <gitProviderTimingsFile>
+   *   ${project.build.directory}/git-provider-timings.properties
+   * </gitProviderTimingsFile>
+   * }</pre>
+   *
+   * @since 7.0.1
+   */
+  @Parameter File gitProviderTimingsFile;
+
+  /**
+   * Not settable by any configuration in the {@code pom.xml}. For internal use only (the git
+   * provider that is used for the current run, see {@link #gitProvider}).
+   */
+  private boolean useNativeGitProvider;
+
+  /**
+   * Not settable by any configuration in the {@code pom.xml}. For internal use only (the parsed
+   * {@link #propertyGroupTimeoutsInMs}, {@code null} if there are none).
+   */
+  private PropertyGroupBudgets propertyGroupBudgets;
+
+  /**
+   * Not settable by any configuration in the {@code pom.xml}. For internal use only (the groups of
+   * the current execution that only hold a fallback or placeholder value).
+   */
+  private Set<GitPropertyGroup> degradedGroups;
+
+  /**
+   * Not settable by any configuration in the {@code pom.xml}. For internal use only (the compiled
+   * regex tokens of the {@link #replacementProperties}, shared within the session).
+   */
+  private ReplacementPatterns replacementPatterns;
+
+  /**
+   * Not settable by any configuration in the {@code pom.xml}. For internal use only (the compiled
+   * {@link #derivedProperties}, shared within the session, {@code null} if there are none).
+   */
+  private DerivedProperties compiledDerivedProperties;
+
+  /**
+   * Not settable by any configuration in the {@code pom.xml}. For internal use only (the final
+   * properties of this execution the {@link #outputProfiles} are rendered from).
+   */
+  private Properties replacedProperties;
+
+  /**
+   * Not settable by any configuration in the {@code pom.xml}. For internal use only (the property
+   * groups that have at least one property left after applying the {@link #includeOnlyProperties}
+   * and {@link #excludeProperties}).
+   */
+  private Set<GitPropertyGroup> selectedPropertyGroups;
+
+  /**
+   * Many projects only need the {@code git.commit.id.full} (or {@code git.commit.id} in the {@code
+   * flat} {@link #commitIdGenerationMode}), {@code git.commit.id.abbrev} and {@code git.branch}
+   * properties. When set to {@code true} the plugin resolves those properties by reading the {@code
+   * HEAD}, the loose ref files and the {@code packed-refs} of the {@code .git} directory directly,
+   * without opening the repository with {@code jgit} or spawning a native git executable.
+   *
+   * <p>The direct read is only used when the {@link #includeOnlyProperties} and {@link
+   * #excludeProperties} leave nothing but those properties, {@link #evaluateOnCommit} is set to
+   * {@code HEAD} and the ref can be resolved from the files (e.g. not for repositories that use the
+   * reftable ref storage). In all other cases the plugin transparently falls back to the configured
+   * git provider ({@link #useNativeGit}).
+   *
+   * <p>Note: The {@code git.commit.id.abbrev} is simply the first {@link #abbrevLength} characters
+   * of the commit id, the direct read can't verify that the abbreviation is unique within the
+   * repository. When {@link #useBranchNameFromBuildEnvironment} is enabled and the build runs on a
+   * build server (or {@code HEAD} is detached) the plugin falls back to the git provider as well,
+   * so that the branch name is resolved the usual way.
+   *
+   * <p>By default this is set to {@code false}.
+   *
+   * <p>Example:
+   *
+   * <pre>{@code
+   * <directRead>true</directRead>
+   * <includeOnlyProperties>
+   *   <includeOnlyProperty>^git.commit.id.(abbrev|full)$</includeOnlyProperty>
+   *   <includeOnlyProperty>^git.branch$</includeOnlyProperty>
+   * </includeOnlyProperties>
+   * }</pre>
+   *
+   * @since 7.0.1
+   */
+  @Parameter(defaultValue = "false")
+  boolean directRead;
+
+  /**
+   * When the {@code jgit} implementation opens the repository for the first time in a JVM it
+   * discovers and reads the system wide ({@code /etc/gitconfig}) and user ({@code ~/.gitconfig},
+   * {@code $XDG_CONFIG_HOME/git/config}) git configuration. Depending on the {@code jgit} version
+   * finding the system configuration involves spawning a native git executable. Set this to {@code
+   * true} to skip that discovery and only use the configuration of the repository itself.
+   *
+   * <p>Note: Properties that are read from the user configuration (e.g. {@code
+   * git.build.user.name} and {@code git.build.user.email}) will only be available if they are
+   * configured in the repository configuration. This option has no effect when the native git
+   * executable is used ({@link #useNativeGit}). Enabling it also lets {@code jgit} measure the
+   * timestamp resolution of the file system in the background; that setting is JVM-global and
+   * applies to every (parallel) execution and other {@code jgit} user of the build.
+   *
+   * <p>By default this is set to {@code false}.
+   *
+   * <p>Example:
+   *
+   * <pre>{@code
+   * <isolateJGitConfig>true</isolateJGitConfig>
+   * }</pre>
+   *
+   * @since 7.0.1
+   */
+  @Parameter(defaultValue = "false")
+  boolean isolateJGitConfig;
+
   /**
    * When set to {@code true} the plugin execution will completely skip. This is useful for e.g.
    * profile activated plugin invocations or to use properties to enable / disable pom features.
@@ -771,7 +943,9 @@ public class GitCommitIdMojo extends AbstractMojo {
    * property when excluded. Such behaviour can result in an overall reduced execution time of the
    * plugin (see <a
    * href="https://github.com/git-commit-id/git-commit-id-maven-plugin/issues/408">issue 408</a> for
-   * details).
+   * details). Since 7.0.1 the filters are additionally evaluated up front against all properties
+   * of a group that share the same git work (e.g. {@code git describe}), so such work is skipped
+   * entirely when none of its properties would survive the filters.
    *
    * <p>Defaults to the empty list (= no properties are excluded).
    *
@@ -885,6 +1059,13 @@ public class GitCommitIdMojo extends AbstractMojo {
    * supported is {@code LOWER_CASE} and {@code UPPER_CASE}. Potential candidates in the feature are
    * {@code CAPITALIZATION} and {@code INVERT_CASE} (open a ticket if you need them...).
    *
+   * <p>Since 7.0.1 the actions {@code TRIM}, {@code COLLAPSE_WHITESPACE}, {@code TRUNCATE}, {@code
+   * STRIP_PREFIX}, {@code STRIP_SUFFIX}, {@code SANITIZE} and {@code DOCKER_TAG} are supported as
+   * well. {@code TRUNCATE} (the maximum length), {@code STRIP_PREFIX} and {@code STRIP_SUFFIX} (the
+   * text to strip) require an {@code argument}, {@code SANITIZE} optionally takes the allowed
+   * characters as the content of a regex character class (default {@code a-zA-Z0-9_.-}) and
+   * replaces all other characters with {@code -}.
+   *
    * <p>Since 4.0.1 the plugin allows to define a {@code forceValueEvaluation}-switch which forces
    * the plugin to evaluate the given value on <b>every</b> project.
    *
@@ -894,6 +1075,10 @@ public class GitCommitIdMojo extends AbstractMojo {
    * cause some overhead (the git properties should be cached). For a use-case refer to <a
    * href="https://github.com/git-commit-id/git-commit-id-maven-plugin/issues/457">issue 457</a>
    *
+   * <p>Since 7.0.1 a replacement can target all properties whose keys match a {@code
+   * propertyPattern} instead of a single {@code property}, either a glob (e.g. {@code
+   * git.commit.user.*} or {@code *.name}) or a regular expression with the prefix {@code regex:}.
+   *
    * <p>Defaults to the empty list / not set (= no properties are being replaced by default)
    *
    * <p>Example:
@@ -930,6 +1115,89 @@ public class GitCommitIdMojo extends AbstractMojo {
    */
   @Parameter List<ReplacementProperty> replacementProperties;
 
+  /**
+   * Set this to {@code false} to never evaluate Maven expressions (e.g. {@code ${project.version}})
+   * in the generated values when the {@link #replacementProperties} are applied. Generated values
+   * like the commit message may contain text that looks like an expression, which would otherwise
+   * get interpolated. The {@code value} of a replacement property is still evaluated.
+   *
+   * <p>Only values that contain an expression marker ({@code $}) are evaluated at all.
+   *
+   * <p>By default this is set to {@code true}.
+   *
+   * <p>Example:
+   *
+   * <pre>{@code
+   * <evaluateGeneratedValues>false</evaluateGeneratedValues>
+   * }</pre>
+   *
+   * @since 7.0.1
+   */
+  @Parameter(defaultValue = "true")
+  boolean evaluateGeneratedValues = true;
+
+  /**
+   * Can be used to assemble additional properties from the generated properties, e.g. a docker
+   * tag that consists of the branch and the abbreviated commit id, without running another plugin
+   * afterwards. Each entry maps the name of the derived property to a template, in which a
+   * reference {@code @{key}} is replaced by the (already replaced) value of the generated property
+   * {@code key}. A template may also reference another derived property. A reference that can't
+   * be resolved is kept as is and reported as a warning.
+   *
+   * <p>The derived properties are computed right after the {@link #replacementProperties} have
+   * been applied and are published (and written to the {@link #generateGitPropertiesFilename})
+   * like any other property. The name is used as is, the {@link #prefix} is not added.
+   *
+   * <p>Note that the references use the late-binding syntax {@code @{key}} instead of {@code
+   * ${key}}: Maven interpolates {@code ${key}} in the configuration of a plugin before the plugin
+   * runs, so it would resolve a property that is already defined at that point (e.g. because it
+   * was {@link #injectAllReactorProjects injected} by a previous execution) with the previous
+   * value, or keep the reference of a property that is not defined yet.
+   *
+   * <p>Example:
+   *
+   * <pre>{@code
+   * <derivedProperties>
+   *     <git.docker.tag>@{git.branch}-@{git.commit.id.abbrev}</git.docker.tag>
+   * </derivedProperties>
+   * }</pre>
+   *
+   * @since 7.0.1
+   */
+  @Parameter Map<String, String> derivedProperties;
+
+  /**
+   * Can be used to render the generated properties a second (or third...) time with another
+   * {@code prefix}, {@code format}, {@code generateGitPropertiesFilename}, {@code
+   * includeOnlyProperties} and {@code excludeProperties}, without running separate executions
+   * that would compute the same git data again. Every profile is rendered from the properties of
+   * this execution (after its own filters, replacements and {@link #derivedProperties} have been
+   * applied): the keys are renamed from the {@link #prefix} of this execution to the prefix of the
+   * profile and then filtered by the filters of the profile. The properties of a profile are
+   * published like the properties of this execution, a file is only generated if the profile
+   * defines a {@code generateGitPropertiesFilename}.
+   *
+   * <p>Example:
+   *
+   * <pre>{@code
+   * <outputProfiles>
+   *     <outputProfile>
+   *         <prefix>app.git</prefix>
+   *         <format>json</format>
+   *         <generateGitPropertiesFilename>
+   *             ${project.build.outputDirectory}/app-git.json
+   *         </generateGitPropertiesFilename>
+   *         <includeOnlyProperties>
+   *             <includeOnlyProperty>^app.git.commit.id.abbrev$</includeOnlyProperty>
+   *         </includeOnlyProperties>
+   *     </outputProfile>
+   * </outputProfiles>
+   * }</pre>
+   *
+   * @since 7.0.1
+   */
+  @Parameter List<OutputProfile> outputProfiles;
+
   /**
    * Allow to tell the plugin what commit should be used as reference to generate the properties
    * from.
@@ -979,6 +1247,231 @@ public class GitCommitIdMojo extends AbstractMojo {
   @Parameter(defaultValue = "30000")
   long nativeGitTimeoutInMs;
 
+  /**
+   * Allow to specify a time budget (in milliseconds) for fetching information with the {@code
+   * jgit} implementation, the counterpart of {@link #nativeGitTimeoutInMs}. JGit has no timeout on
+   * its own, a run that is stuck walking a pathological history or scanning a huge working tree
+   * could otherwise stall the build for minutes.
+   *
+   * <p>The JGit run is executed on a separate thread and is cancelled once the budget is exhausted.
+   * What happens then is defined by {@link #jgitTimeoutPolicy}.
+   *
+   * <p>Note: This option will only be taken into consideration when using the {@code jgit}
+   * implementation. By default this is set to {@code 0}, which disables the budget.
+   *
+   * <p>Example:
+   *
+   * <pre>{@code
+   * <jgitTimeoutInMs>30000</jgitTimeoutInMs>
+   * }</pre>
+   *
+   * @since 7.0.1
+   */
+  @Parameter(defaultValue = "0")
+  long jgitTimeoutInMs;
+
+  /**
+   * Defines what happens when the {@code jgit} implementation exceeds the {@link #jgitTimeoutInMs}.
+   * Valid options are:
+   *
+   * <ul>
+   *   <li>{@code fail}: the execution fails (or, with the {@code auto} {@link #gitProvider}, is
+   *       retried with the native git executable).
+   *   <li>{@code partial}: the execution continues with the properties the cancelled run already
+   *       computed, the properties that can be read without JGit ({@code git.commit.id}, {@code
+   *       git.commit.id.abbrev} and {@code git.branch}, see {@link #directRead}) and the build
+   *       properties. All other git properties are set to {@code unavailable}.
+   * </ul>
+   *
+   * <p>By default this is set to {@code fail}.
+   *
+   * <p>Example:
+   *
+   * <pre>{@code
+   * <jgitTimeoutPolicy>partial</jgitTimeoutPolicy>
+   * }</pre>
+   *
+   * @since 7.0.1
+   */
+  @Parameter(defaultValue = "fail")
+  String jgitTimeoutPolicy;
+
+  /**
+   * Allow to specify a time budget (in milliseconds) per group of properties, instead of a single
+   * timeout for the whole git provider. Each budgeted group is computed in parallel to the other
+   * properties and is replaced by a cheap fallback if it doesn't finish within its budget (or
+   * fails):
+   *
+   * <ul>
+   *   <li>{@code describe} ({@code git.commit.id.describe}, {@code git.commit.id.describe-short}):
+   *       the abbreviated commit id.
+   *   <li>{@code dirty} ({@code git.dirty}): {@code unknown}.
+   *   <li>all other groups ({@code aheadBehind}, {@code closestTag}, {@code totalCommitCount},
+   *       {@code tags}, {@code commitMetadata}, {@code remote}, {@code branch}, {@code commitId})
+   *       are omitted.
+   * </ul>
+   *
+   * <p>This is meant for builds that value fast stamping over exact values (e.g. pull request
+   * builds). Builds that need strict behaviour (e.g. releases) simply don't configure any budget,
+   * for instance by defining the budgets in a profile.
+   *
+   * <p>Example:
+   *
+   * <pre>{@code
+   * <propertyGroupTimeoutsInMs>
+   *   <describe>200</describe>
+   *   <dirty>500</dirty>
+   *   <aheadBehind>1000</aheadBehind>
+   * </propertyGroupTimeoutsInMs>
+   * }</pre>
+   *
+   * @since 7.0.1
+   */
+  @Parameter Map<String, String> propertyGroupTimeoutsInMs;
+
+  /**
+   * Set this to {@code true} to only compute the expensive properties ({@code
+   * git.commit.id.describe*}, {@code git.dirty}, {@code git.tags}, {@code git.tag}, {@code
+   * git.closest.tag.*}, {@code git.total.commit.count} and {@code git.local.branch.*}) when they
+   * are actually looked up in the project properties (e.g. by a plugin parameter that references
+   * {@code ${git.dirty}}). Each group of properties is computed at most once and then memoised, so
+   * every reader sees the same values. A group is computed like the other properties (with the
+   * same git provider, {@link #jgitTimeoutInMs}, {@link #propertyGroupTimeoutsInMs}, {@link
+   * #isolateJGitConfig} and {@link #maxConcurrentGitExecutions}).
+   *
+   * <p>This can save a lot of time when most modules never reference those properties, which is
+   * hard to express statically with {@link #includeOnlyProperties}.
+   *
+   * <p>To do so the properties of the project model are replaced by a lazy view of them. The
+   * original {@link Properties} instance is kept: every value that is set or computed through the
+   * view is written through to it, but reading the original instance never computes anything.
+   *
+   * <p>Note: Only readers that look up single keys benefit from this option. Every reader that
+   * iterates over or copies all project properties computes all groups at once, e.g. the resource
+   * filtering of the {@code maven-resources-plugin}, the {@code properties-maven-plugin} or any
+   * plugin that passes the project properties on to a forked process. As soon as something needs
+   * all properties anyway ({@link #generateGitPropertiesFile}, {@link #injectAllReactorProjects},
+   * {@link #injectIntoSysProperties} or the {@link #outputProfiles}) this option has no effect.
+   * The lazy properties are not published to the user properties.
+   *
+   * <p>By default this is set to {@code false}.
+   *
+   * <p>Example:
+   *
+   * <pre>{@code
+   * <lazyProperties>true</lazyProperties>
+   * }</pre>
+   *
+   * @since 7.0.1
+   */
+  @Parameter(defaultValue = "false")
+  boolean lazyProperties;
+
+  /**
+   * Set this to {@code true} to reuse the properties of the previous execution whose inputs did
+   * not change. The plugin keeps the computed properties in the {@link #incrementalSnapshotFile}
+   * together with a fingerprint of the git files each group of properties depends on (e.g. {@code
+   * HEAD} for the commit metadata and the total commit count, {@code HEAD} and the tags for {@code
+   * git describe}, the remote-tracking refs for ahead/behind). Only the groups whose inputs changed
+   * are recomputed, e.g. after a fetch only the ahead/behind properties.
+   *
+   * <p>The branch, the dirty flag and the build properties are always recomputed, because their
+   * inputs can't be fingerprinted cheaply (the working tree, the build environment). The same
+   * goes for {@code git describe} when a dirty marker is configured and for ahead/behind when the
+   * plugin is not {@link #offline}. Only supported with {@link #evaluateOnCommit} set to {@code
+   * HEAD}.
+   *
+   * <p>By default this is set to {@code false}.
+   *
+   * <p>Example:
+   *
+   * <pre>{@code
+   * <incremental>true</incremental>
+   * }</pre>
+   *
+   * @since 7.0.1
+   */
+  @Parameter(defaultValue = "false")
+  boolean incremental;
+
+  /**
+   * The file the {@link #incremental} mode keeps its snapshot in.
+   *
+   * <p>Example:
+   *
+   * <pre>{@code
+   * <incrementalSnapshotFile>
+   *   ${project.build.directory}/git-commit-id-snapshot.properties
+   * </incrementalSnapshotFile>
+   * }</pre>
+   *
+   * @since 7.0.1
+   */
+  @Parameter(defaultValue = "${project.build.directory}/git-commit-id-snapshot.properties")
+  File incrementalSnapshotFile;
+
+  /**
+   * Set this to {@code true} to let concurrent executions (e.g. a parallel build with {@code mvn -T
+   * 2C}) that would compute the very same properties (same repository and configuration) share
+   * the work: the first execution computes the properties, the others wait for it and receive a
+   * copy. The build properties are still computed per module.
+   *
+   * <p>This is not a cache, executions that start after the first one finished compute the
+   * properties again. An execution waits at most {@link #coordinateConcurrentExecutionsTimeoutInMs}
+   * and then computes the properties itself. Has no effect in combination with {@link
+   * #lazyProperties}.
+   *
+   * <p>By default this is set to {@code false}.
+   *
+   * <p>Example:
+   *
+   * <pre>{@code
+   * <coordinateConcurrentExecutions>true</coordinateConcurrentExecutions>
+   * }</pre>
+   *
+   * @since 7.0.1
+   */
+  @Parameter(defaultValue = "false")
+  boolean coordinateConcurrentExecutions;
+
+  /**
+   * Allow to specify how long (in milliseconds) an execution waits for a concurrent execution
+   * that computes the very same properties (see {@link #coordinateConcurrentExecutions}). Once the
+   * timeout is exhausted the execution stops waiting and computes the properties itself.
+   *
+   * <p>By default this timeout is set to 30000 (30 seconds).
+   *
+   * <p>Example:
+   *
+   * <pre>{@code
+   * <coordinateConcurrentExecutionsTimeoutInMs>30000</coordinateConcurrentExecutionsTimeoutInMs>
+   * }</pre>
+   *
+   * @since 7.0.1
+   */
+  @Parameter(defaultValue = "30000")
+  long coordinateConcurrentExecutionsTimeoutInMs;
+
+  /**
+   * Limits how many executions of this plugin may do git work at the same time within one Maven
+   * invocation. In a parallel build (e.g. {@code mvn -T 32}) every module would otherwise scan the
+   * repository at the same time, which thrashes the disk and the page cache of shared build hosts.
+   * Executions beyond the limit wait until another execution finished its git work. JGit shares
+   * its pack window cache between all executions within the JVM anyway.
+   *
+   * <p>By default this is set to {@code 0} which means no limit.
+   *
+   * <p>Example:
+   *
+   * <pre>{@code
+   * <maxConcurrentGitExecutions>4</maxConcurrentGitExecutions>
+   * }</pre>
+   *
+   * @since 7.0.1
+   */
+  @Parameter(defaultValue = "0")
+  int maxConcurrentGitExecutions;
+
   /**
    * When set to {@code true} this plugin will try to use the branch name from build environment.
    * Set to {@code false} to use JGit/GIT to get current branch name which can be useful when using
@@ -1089,7 +1582,17 @@ public class GitCommitIdMojo extends AbstractMojo {
   @Override
   public void execute() throws MojoExecutionException {
     LogInterface log =
-        new LogInterface() {
+        new LevelAwareLog() {
+          @Override
+          public boolean isDebugEnabled() {
+            return verbose && getLog().isDebugEnabled();
+          }
+
+          @Override
+          public boolean isInfoEnabled() {
+            return verbose && getLog().isInfoEnabled();
+          }
+
           @Override
           public void debug(String msg) {
             if (verbose) {
@@ -1211,6 +1714,9 @@ public class GitCommitIdMojo extends AbstractMojo {
 
       if (dotGitDirectory != null) {
         log.info("dotGitDirectory '" + dotGitDirectory.getAbsolutePath() + "'");
+        if (GitDirLocator.isReftableRepository(dotGitDirectory)) {
+          log.info("dotGitDirectory uses the reftable ref storage");
+        }
       } else {
         log.info("dotGitDirectory is null, aborting execution!");
         return;
@@ -1234,6 +1740,39 @@ public class GitCommitIdMojo extends AbstractMojo {
         commitIdPropertiesOutputFormat = CommitIdPropertiesOutputFormat.PROPERTIES;
       }
 
+      propertyGroupBudgets = PropertyGroupBudgets.parse(propertyGroupTimeoutsInMs, log);
+      degradedGroups = Collections.synchronizedSet(EnumSet.noneOf(GitPropertyGroup.class));
+
+      replacementPatterns = ReplacementPatterns.forScope(singleFlightScope());
+      replacementPatterns.precompile(replacementProperties);
+      TransformationPipeline.validate(replacementProperties);
+      compiledDerivedProperties =
+          DerivedProperties.compile(singleFlightScope(), derivedProperties);
+
+      GitProviderSelector gitProviderSelector = null;
+      String provider =
+          gitProvider == null || gitProvider.trim().isEmpty()
+              ? (useNativeGit || useNativeGitViaCommandLine) ? "native" : "jgit"
+              : gitProvider.trim().toLowerCase(Locale.ROOT);
+      switch (provider) {
+        case "native":
+          useNativeGitProvider = true;
+          break;
+        case "auto":
+          gitProviderSelector =
+              new GitProviderSelector(dotGitDirectory, gitProviderTimingsFile, log);
+          useNativeGitProvider = gitProviderSelector.selectNativeGit();
+          break;
+        case "jgit":
+          useNativeGitProvider = false;
+          break;
+        default:
+          log.warn(
+              "Detected wrong setting for 'gitProvider'. Falling back to the setting of"
+                  + " 'useNativeGit'!");
+          useNativeGitProvider = useNativeGit || useNativeGitViaCommandLine;
+      }
+
       final GitCommitIdPlugin.Callback cb =
           new GitCommitIdPlugin.Callback() {
             @Override
@@ -1289,7 +1828,7 @@ public class GitCommitIdMojo extends AbstractMojo {
 
             @Override
             public boolean useNativeGit() {
-              return useNativeGit || useNativeGitViaCommandLine;
+              return useNativeGitProvider;
             }
 
             @Override
@@ -1304,6 +1843,14 @@ public class GitCommitIdMojo extends AbstractMojo {
 
             @Override
             public GitDescribeConfig getGitDescribe() {
+              if (!selectedPropertyGroups.contains(GitPropertyGroup.DESCRIBE)
+                  && !selectedPropertyGroups.contains(GitPropertyGroup.CLOSEST_TAG)) {
+                // nothing would survive the filters, don't even run git describe (the closest tag
+                // is looked up with the same describe configuration, so it must stay untouched)
+                GitDescribeConfig skippedGitDescribe = new GitDescribeConfig();
+                skippedGitDescribe.setSkip(true);
+                return skippedGitDescribe;
+              }
               return gitDescribe;
             }
 
@@ -1334,7 +1881,8 @@ public class GitCommitIdMojo extends AbstractMojo {
 
             @Override
             public boolean shouldGenerateGitPropertiesFile() {
-              return generateGitPropertiesFile;
+              // the file is written by the mojo itself once the run is done (see generateOutputs)
+              return false;
             }
 
             @Override
@@ -1344,12 +1892,14 @@ public class GitCommitIdMojo extends AbstractMojo {
 
             @Override
             public void performPropertiesReplacement(Properties properties) {
-              PropertiesReplacer propertiesReplacer =
-                  new PropertiesReplacer(
-                      log, new PluginParameterExpressionEvaluator(session, mojoExecution));
-              propertiesReplacer.performReplacement(properties, replacementProperties);
+              replaceProperties(log, properties);
+              if (compiledDerivedProperties != null) {
+                compiledDerivedProperties.derive(
+                    properties, GitCommitIdMojo.this::lazyProperty, log);
+              }
 
               logProperties(getLogInterface(), properties);
+              replacedProperties = properties;
             }
 
             @Override
@@ -1393,6 +1943,18 @@ public class GitCommitIdMojo extends AbstractMojo {
             }
           };
 
+      selectedPropertyGroups =
+          GitPropertyGroup.selectedGroups(
+              cb.getPrefixDot(), includeOnlyProperties, excludeProperties);
+      if (selectedPropertyGroups.size() < GitPropertyGroup.values().length) {
+        Set<GitPropertyGroup> skippedGroups = EnumSet.allOf(GitPropertyGroup.class);
+        skippedGroups.removeAll(selectedPropertyGroups);
+        log.info(
+            "includeOnlyProperties/excludeProperties filter out all properties of "
+                + skippedGroups
+                + ", those are not computed");
+      }
+
       Properties properties = null;
       // check if properties have already been injected
       Properties contextProperties = getContextProperties(project);
@@ -1403,19 +1965,191 @@ public class GitCommitIdMojo extends AbstractMojo {
         properties = contextProperties;
       }
 
-      GitCommitIdPlugin.runPlugin(cb, properties);
+      if (directRead && !alreadyInjected) {
+        Properties directProperties =
+            readGitPropertiesDirectly(log, cb.getPrefixDot(), selectedPropertyGroups);
+        if (directProperties != null) {
+          runPluginWithoutGitProvider(cb, directProperties);
+          generateOutputs(log, cb);
+          return;
+        }
+        log.info("directRead is enabled, but falling back to the git provider");
+      }
+
+      GitCommitIdPlugin.Callback providerCallback = cb;
+      if (incremental && !alreadyInjected && incrementalSnapshotFile != null) {
+        if ("HEAD".equals(evaluateOnCommit)) {
+          IncrementalSnapshot snapshot =
+              new IncrementalSnapshot(
+                  dotGitDirectory,
+                  incrementalSnapshotFile,
+                  incrementalConfiguration(cb),
+                  incrementalGroups(cb),
+                  log);
+          properties = snapshot.loadReusableProperties();
+          providerCallback =
+              new DelegatingCallback(cb) {
+                private boolean stored = false;
+
+                @Override
+                public void performPublishToAllSystemEnvironments(Properties properties) {
+                  if (!stored) {
+                    stored = true;
+                    snapshot.store(properties, getPrefixDot(), degradedGroups);
+                  }
+                  super.performPublishToAllSystemEnvironments(properties);
+                }
+              };
+        } else {
+          log.info("incremental only supports evaluateOnCommit=HEAD");
+        }
+      }
+      boolean lazy = false;
+      if (lazyProperties && !alreadyInjected) {
+        if (generateGitPropertiesFile
+            || injectAllReactorProjects
+            || injectIntoSysProperties
+            || hasOutputProfiles()) {
+          log.info(
+              "lazyProperties has no effect, all properties are needed for"
+                  + " generateGitPropertiesFile, injectAllReactorProjects,"
+                  + " injectIntoSysProperties or outputProfiles");
+        } else {
+          providerCallback = installLazyGitProperties(log, providerCallback);
+          lazy = true;
+        }
+      }
+
+      SingleFlight flight = null;
+      if (coordinateConcurrentExecutions && !alreadyInjected && !lazy) {
+        flight = SingleFlight.join(singleFlightScope(), singleFlightKey(cb));
+        if (!flight.isLeader()) {
+          log.info("Waiting for a concurrent execution that computes the same properties");
+          Properties shared = flight.await(coordinateConcurrentExecutionsTimeoutInMs);
+          flight = null;
+          if (shared != null) {
+            // the build properties (e.g. build.version) depend on the module
+            for (String key : GitPropertyGroup.BUILD.getKeys()) {
+              shared.remove(cb.getPrefixDot() + key);
+            }
+            properties = shared;
+          } else {
+            log.info(
+                "The concurrent execution failed or did not finish within "
+                    + coordinateConcurrentExecutionsTimeoutInMs
+                    + "ms, computing the properties");
+          }
+        } else {
+          SingleFlight leader = flight;
+          providerCallback =
+              new DelegatingCallback(providerCallback) {
+                private boolean shared = false;
+
+                @Override
+                public void performPublishToAllSystemEnvironments(Properties properties) {
+                  if (!shared) {
+                    shared = true;
+                    leader.complete(properties);
+                  }
+                  super.performPublishToAllSystemEnvironments(properties);
+                }
+              };
+        }
+      }
+
+      try {
+        GitCommitIdPlugin.Callback scheduledCallback = providerCallback;
+        Properties scheduledProperties = properties;
+        GitProviderSelector scheduledSelector = gitProviderSelector;
+        runGitWork(
+            log,
+            () -> {
+              if (scheduledSelector != null) {
+                runPluginWithFallback(
+                    log, scheduledCallback, scheduledProperties, scheduledSelector);
+              } else {
+                runPluginWithSelectedProvider(scheduledCallback, scheduledProperties);
+              }
+            });
+      } finally {
+        if (flight != null) {
+          // never leave waiting executions behind (does nothing if the result was shared)
+          flight.complete(null);
+        }
+      }
+      generateOutputs(log, cb);
     } catch (GitCommitIdExecutionException e) {
       throw new MojoExecutionException(e.getMessage(), e);
     }
   }
 
-  private void publishToAllSystemEnvironments(LogInterface log, Properties propertiesToPublish) {
+  private boolean hasOutputProfiles() {
+    return outputProfiles != null && !outputProfiles.isEmpty();
+  }
+
+  /**
+   * Writes the {@link #generateGitPropertiesFilename} and renders the {@link #outputProfiles} from
+   * the final properties of this execution.
+   */
+  private void generateOutputs(LogInterface log, GitCommitIdPlugin.Callback cb)
+      throws GitCommitIdExecutionException {
+    if (replacedProperties == null) {
+      return;
+    }
+    GitPropertiesFileWriter writer =
+        new GitPropertiesFileWriter(log, cb.getBuildFileChangeListener());
+    if (generateGitPropertiesFile) {
+      writer.write(
+          replacedProperties,
+          cb.getProjectBaseDir(),
+          cb.getGenerateGitPropertiesFile(),
+          cb.getPropertiesOutputFormat(),
+          cb.getPropertiesSourceCharset(),
+          cb.shouldPropertiesEscapeUnicode(),
+          cb.getPrefixDot(),
+          cb.getProjectName());
+    }
+    if (!hasOutputProfiles()) {
+      return;
+    }
+    for (OutputProfile profile : outputProfiles) {
+      Properties profileProperties =
+          OutputProfiles.render(replacedProperties, cb.getPrefixDot(), profile, log);
+      if (profile.getGenerateGitPropertiesFilename() != null) {
+        writer.write(
+            profileProperties,
+            cb.getProjectBaseDir(),
+            new File(profile.getGenerateGitPropertiesFilename()),
+            OutputProfiles.format(profile, commitIdPropertiesOutputFormat, log),
+            cb.getPropertiesSourceCharset(),
+            cb.shouldPropertiesEscapeUnicode(),
+            OutputProfiles.prefixDot(profile.getPrefix()),
+            cb.getProjectName());
+      }
+      publishToAllSystemEnvironments(log, profileProperties, false);
+    }
+  }
+
+  private void publishToAllSystemEnvironments(LogInterface log, Properties properties) {
+    publishToAllSystemEnvironments(log, properties, true);
+  }
+
+  /**
+   * Publishes the properties.
+   *
+   * @param storeInContext {@code false} for properties that must not be reused as the already
+   *     computed properties of this execution (e.g. the properties of an {@link OutputProfile}).
+   */
+  private void publishToAllSystemEnvironments(
+      LogInterface log, Properties properties, boolean storeInContext) {
+    // one snapshot for all targets
+    CompactProperties propertiesToPublish = CompactProperties.of(properties);
     publishPropertiesInto(propertiesToPublish, project.getProperties());
     // some plugins rely on the user properties (e.g. flatten-maven-plugin)
     publishPropertiesInto(propertiesToPublish, session.getUserProperties());
 
     if (injectAllReactorProjects) {
-      appendPropertiesToReactorProjects(log, propertiesToPublish);
+      appendPropertiesToReactorProjects(log, propertiesToPublish, storeInContext);
     }
 
     if (injectIntoSysProperties) {
@@ -1425,11 +2159,452 @@ public class GitCommitIdMojo extends AbstractMojo {
     }
   }
 
+  /**
+   * Runs the plugin with the provider chosen by the {@code auto} {@link #gitProvider} and retries
+   * with the other provider if it fails to load the git data. A failure after the git data was
+   * loaded (e.g. while replacing or publishing the properties) does not depend on the provider and
+   * is not retried.
+   */
+  private void runPluginWithFallback(
+      LogInterface log,
+      GitCommitIdPlugin.Callback cb,
+      @Nullable Properties properties,
+      GitProviderSelector gitProviderSelector)
+      throws GitCommitIdExecutionException {
+    AtomicBoolean gitDataLoaded = new AtomicBoolean(false);
+    GitCommitIdPlugin.Callback attemptCallback =
+        new DelegatingCallback(cb) {
+          @Override
+          public void performPropertiesReplacement(Properties properties) {
+            // the plugin core replaces the properties once all git data is loaded
+            gitDataLoaded.set(true);
+            super.performPropertiesReplacement(properties);
+          }
+        };
+    long startTime = System.nanoTime();
+    try {
+      runPluginWithSelectedProvider(attemptCallback, copyOf(properties));
+      gitProviderSelector.recordTiming(
+          useNativeGitProvider, (System.nanoTime() - startTime) / 1_000_000);
+    } catch (GitCommitIdExecutionException | RuntimeException e) {
+      if (gitDataLoaded.get()) {
+        throw e;
+      }
+      gitProviderSelector.recordFailure(
+          useNativeGitProvider, (System.nanoTime() - startTime) / 1_000_000);
+      log.warn(
+          "The "
+              + GitProviderSelector.providerName(useNativeGitProvider)
+              + " git provider failed ("
+              + e.getMessage()
+              + "), retrying with the "
+              + GitProviderSelector.providerName(!useNativeGitProvider)
+              + " git provider");
+      useNativeGitProvider = !useNativeGitProvider;
+      long fallbackStartTime = System.nanoTime();
+      // the failed attempt may have filled its copy partially
+      runPluginWithSelectedProvider(cb, copyOf(properties));
+      gitProviderSelector.recordTiming(
+          useNativeGitProvider, (System.nanoTime() - fallbackStartTime) / 1_000_000);
+    }
+  }
+
+  @Nullable
+  private static Properties copyOf(@Nullable Properties properties) {
+    return properties == null ? null : (Properties) properties.clone();
+  }
+
+  private void runPluginWithSelectedProvider(
+      GitCommitIdPlugin.Callback cb, @Nullable Properties properties)
+      throws GitCommitIdExecutionException {
+    if (useNativeGitProvider) {
+      runCorePlugin(cb, properties);
+    } else {
+      runPluginWithJGit(cb, properties);
+    }
+  }
+
+  /** Runs the plugin core, enforcing the {@link #propertyGroupTimeoutsInMs} if there are any. */
+  private void runCorePlugin(GitCommitIdPlugin.Callback cb, @Nullable Properties properties)
+      throws GitCommitIdExecutionException {
+    if (propertyGroupBudgets == null) {
+      GitCommitIdPlugin.runPlugin(cb, properties);
+    } else {
+      propertyGroupBudgets.runPlugin(cb, properties, degradedGroups);
+    }
+  }
+
+  /**
+   * Runs the plugin with the {@code jgit} implementation. Everything that needs JGit classes on
+   * the plugin side is kept in here, so that no JGit class is loaded when the native git executable
+   * is used.
+   */
+  private void runPluginWithJGit(GitCommitIdPlugin.Callback cb, @Nullable Properties properties)
+      throws GitCommitIdExecutionException {
+    if (jgitTimeoutInMs <= 0) {
+      runIsolated(() -> runCorePlugin(cb, properties));
+      return;
+    }
+    // a cancelled run may still be inside JGit for a while: it computes into its own properties
+    // and holds the isolation itself until it has stopped
+    Properties computed = properties == null ? new Properties() : (Properties) properties.clone();
+    CancellableGitRun run = new CancellableGitRun();
+    GitCommitIdPlugin.Callback runCallback = cancellableCallback(cb, run);
+    boolean finished =
+        run.run(() -> runIsolated(() -> runCorePlugin(runCallback, computed)), jgitTimeoutInMs);
+    if (!finished) {
+      GitWorkScheduler.holdUntilStopped(run);
+      handleJGitTimeout(cb, computed);
+    }
+  }
+
+  /**
+   * Binds the callback to the run: every callback of the plugin core acts as a cancellation point
+   * and a cancelled run can neither publish nor replace its (late) results.
+   */
+  private static GitCommitIdPlugin.Callback cancellableCallback(
+      GitCommitIdPlugin.Callback cb, CancellableGitRun run) {
+    return new DelegatingCallback(cb) {
+      @Nonnull
+      @Override
+      public LogInterface getLogInterface() {
+        return run.cancellationPoints(super.getLogInterface());
+      }
+
+      @Override
+      public boolean shouldGenerateGitPropertiesFile() {
+        run.checkCancelled();
+        return super.shouldGenerateGitPropertiesFile();
+      }
+
+      @Override
+      public void performPublishToAllSystemEnvironments(Properties properties) {
+        run.runIfNotCancelled(() -> super.performPublishToAllSystemEnvironments(properties));
+      }
+
+      @Override
+      public void performPropertiesReplacement(Properties properties) {
+        run.runIfNotCancelled(() -> super.performPropertiesReplacement(properties));
+      }
+    };
+  }
+
+  /** Runs the task with the {@link #isolateJGitConfig} applied to the current thread. */
+  private void runIsolated(CancellableGitRun.Task task) throws GitCommitIdExecutionException {
+    if (!isolateJGitConfig) {
+      task.run();
+      return;
+    }
+    IsolatedSystemReader.install();
+    try {
+      task.run();
+    } finally {
+      IsolatedSystemReader.uninstall();
+    }
+  }
+
+  /**
+   * Applies the {@link #jgitTimeoutPolicy} once the {@code jgit} run has been cancelled.
+   *
+   * @param computed The properties the cancelled run computed so far.
+   */
+  private void handleJGitTimeout(GitCommitIdPlugin.Callback cb, Properties computed)
+      throws GitCommitIdExecutionException {
+    String message = "JGit did not finish within the jgitTimeoutInMs of " + jgitTimeoutInMs + "ms";
+    String policy = jgitTimeoutPolicy == null ? "fail" : jgitTimeoutPolicy.trim();
+    if (!"partial".equalsIgnoreCase(policy)) {
+      if (!"fail".equalsIgnoreCase(policy)) {
+        cb.getLogInterface()
+            .warn("Detected wrong setting for 'jgitTimeoutPolicy'. Falling back to 'fail'!");
+      }
+      throw new GitCommitIdExecutionException(message);
+    }
+    cb.getLogInterface().warn(message + ", continuing with partial properties");
+
+    String prefixDot = cb.getPrefixDot();
+    // everything the cancelled run computed so far (the core computes the git data first)
+    Properties partial = (Properties) computed.clone();
+    Properties head = readHeadDirectly(cb.getLogInterface(), prefixDot);
+    if (head != null) {
+      head.forEach(partial::putIfAbsent);
+    }
+    loadBuildData(cb, partial);
+    for (GitPropertyGroup group : GitPropertyGroup.values()) {
+      for (String key : group.getKeys()) {
+        if (isCommitIdKeyOfOtherMode(key)
+            || (group == GitPropertyGroup.BUILD && !key.startsWith("build.user."))) {
+          // the other build properties don't need git (or depend on the build server)
+          continue;
+        }
+        if (partial.putIfAbsent(prefixDot + key, UNAVAILABLE) == null) {
+          degradedGroups.add(group);
+        }
+      }
+    }
+    runPluginWithoutGitProvider(cb, partial);
+  }
+
+  /** Computes the build properties (they don't need git) like the plugin core does. */
+  private static void loadBuildData(GitCommitIdPlugin.Callback cb, Properties properties)
+      throws GitCommitIdExecutionException {
+    BuildServerDataProvider.getBuildServerProvider(cb.getSystemEnv(), cb.getLogInterface())
+        .setDateFormat(cb.getDateFormat())
+        .setDateFormatTimeZone(cb.getDateFormatTimeZone())
+        .setPrefixDot(cb.getPrefixDot())
+        .setExcludeProperties(cb.getExcludeProperties())
+        .setIncludeOnlyProperties(cb.getIncludeOnlyProperties())
+        .setAdditionalProperties(
+            Collections.singletonMap("build.version", cb.supplyProjectVersion()))
+        .loadBuildData(properties, cb.getReproducibleBuildOutputTimestamp());
+  }
+
+  private boolean isCommitIdKeyOfOtherMode(String key) {
+    if (commitIdGenerationModeEnum == CommitIdGenerationMode.FULL) {
+      return key.equals("commit.id");
+    }
+    return key.equals("commit.id.full");
+  }
+
+  /**
+   * Resolves the properties of the {@link #directRead} mode.
+   *
+   * @return The properties or {@code null} if the properties can't be (fully) resolved by reading
+   *     the git files directly and the git provider needs to be used.
+   */
+  @Nullable
+  private Properties readGitPropertiesDirectly(
+      LogInterface log, String prefixDot, Set<GitPropertyGroup> selectedGroups) {
+    if (!"HEAD".equals(evaluateOnCommit)) {
+      log.info("directRead only supports evaluateOnCommit=HEAD");
+      return null;
+    }
+    if (!DIRECT_READ_GROUPS.containsAll(selectedGroups)) {
+      log.info("directRead can't resolve all requested properties " + selectedGroups);
+      return null;
+    }
+    Properties properties = readHeadDirectly(log, prefixDot);
+    if (properties == null) {
+      return null;
+    }
+    if (selectedGroups.contains(GitPropertyGroup.BRANCH)) {
+      if (!properties.containsKey(prefixDot + "branch")) {
+        return null;
+      }
+    } else {
+      properties.remove(prefixDot + "branch");
+    }
+    return properties;
+  }
+
+  /**
+   * Reads the commit id (and if possible the branch) of {@code HEAD} straight from the git files.
+   *
+   * @return The properties or {@code null} if not even the commit id can be resolved. The branch
+   *     is omitted if {@code HEAD} is detached or the branch should be taken from the build server.
+   */
+  @Nullable
+  private Properties readHeadDirectly(LogInterface log, String prefixDot) {
+    if (!"HEAD".equals(evaluateOnCommit) || abbrevLength < 2 || abbrevLength > 40) {
+      return null;
+    }
+    GitDirectReader.Head head;
+    try {
+      head = new GitDirectReader(dotGitDirectory).readHead();
+    } catch (IOException e) {
+      log.warn("Unable to read the git files directly: " + e.getMessage());
+      return null;
+    }
+    if (head == null) {
+      return null;
+    }
+    Properties properties = new Properties();
+    if (head.getBranch() != null
+        && !(useBranchNameFromBuildEnvironment && isBuildServerBranchAvailable(log))) {
+      properties.setProperty(prefixDot + "branch", head.getBranch());
+    }
+    String commitIdKey =
+        commitIdGenerationModeEnum == CommitIdGenerationMode.FULL ? "commit.id.full" : "commit.id";
+    properties.setProperty(prefixDot + commitIdKey, head.getCommitId());
+    properties.setProperty(
+        prefixDot + "commit.id.abbrev", head.getCommitId().substring(0, abbrevLength));
+    return properties;
+  }
+
+  /** Everything that influences the values of the groups that the {@link #incremental} reuses. */
+  private String incrementalConfiguration(GitCommitIdPlugin.Callback cb) {
+    return String.join(
+        "|",
+        cb.getPrefixDot(),
+        String.valueOf(abbrevLength),
+        dateFormat,
+        String.valueOf(dateFormatTimeZone),
+        String.valueOf(commitIdGenerationModeEnum),
+        String.valueOf(cb.isOffline()),
+        String.valueOf(gitDescribe.isSkip()),
+        String.valueOf(gitDescribe.isAlways()),
+        String.valueOf(gitDescribe.getDirty()),
+        String.valueOf(gitDescribe.getMatch()),
+        String.valueOf(gitDescribe.getAbbrev()),
+        String.valueOf(gitDescribe.getTags()),
+        String.valueOf(gitDescribe.getForceLongFormat()));
+  }
+
+  /** Runs the git work within the limit of {@link #maxConcurrentGitExecutions}. */
+  private void runGitWork(LogInterface log, CancellableGitRun.Task task)
+      throws GitCommitIdExecutionException {
+    if (maxConcurrentGitExecutions > 0) {
+      GitWorkScheduler.forScope(singleFlightScope(), maxConcurrentGitExecutions).run(log, task);
+    } else {
+      task.run();
+    }
+  }
+
+  /** The scope that concurrent executions share work and limits in: one Maven invocation. */
+  private Object singleFlightScope() {
+    return session.getRequest() != null ? session.getRequest() : session;
+  }
+
+  /** Everything that influences the properties {@link #coordinateConcurrentExecutions} shares. */
+  private String singleFlightKey(GitCommitIdPlugin.Callback cb) {
+    return String.join(
+        "|",
+        dotGitDirectory.getAbsolutePath(),
+        String.valueOf(useNativeGitProvider),
+        String.valueOf(evaluateOnCommit),
+        String.valueOf(useBranchNameFromBuildEnvironment),
+        incrementalConfiguration(cb));
+  }
+
+  /** The groups the {@link #incremental} mode may reuse (see its documentation). */
+  private Set<GitPropertyGroup> incrementalGroups(GitCommitIdPlugin.Callback cb) {
+    Set<GitPropertyGroup> groups =
+        EnumSet.of(
+            GitPropertyGroup.COMMIT_METADATA,
+            GitPropertyGroup.TOTAL_COMMIT_COUNT,
+            GitPropertyGroup.TAGS,
+            GitPropertyGroup.CLOSEST_TAG);
+    String dirtyMarker = gitDescribe.getDirty();
+    if (dirtyMarker == null || dirtyMarker.isEmpty()) {
+      groups.add(GitPropertyGroup.DESCRIBE);
+    }
+    if (cb.isOffline()) {
+      groups.add(GitPropertyGroup.AHEAD_BEHIND);
+    }
+    groups.retainAll(selectedPropertyGroups);
+    return groups;
+  }
+
+  /**
+   * Registers the expensive property groups as lazy entries of the project properties (see {@link
+   * #lazyProperties}).
+   *
+   * @return The callback for the provider run, which excludes the lazy properties.
+   */
+  private GitCommitIdPlugin.Callback installLazyGitProperties(
+      LogInterface log, GitCommitIdPlugin.Callback cb) {
+    String prefixDot = cb.getPrefixDot();
+    LazyGitProperties lazyGitProperties;
+    if (project.getProperties() instanceof LazyGitProperties) {
+      lazyGitProperties = (LazyGitProperties) project.getProperties();
+    } else {
+      lazyGitProperties = new LazyGitProperties(project.getProperties());
+      project.getModel().setProperties(lazyGitProperties);
+    }
+
+    List<String> providerExcludeProperties = new ArrayList<>();
+    if (excludeProperties != null) {
+      providerExcludeProperties.addAll(excludeProperties);
+    }
+    for (GitPropertyGroup group : LAZY_GROUPS) {
+      List<String> keys = group.selectedKeys(prefixDot, includeOnlyProperties, excludeProperties);
+      if (keys.isEmpty()) {
+        continue;
+      }
+      lazyGitProperties.addLazyGroup(keys, () -> computeLazyGroup(log, cb, group));
+      providerExcludeProperties.addAll(group.exactKeyPatterns(prefixDot));
+    }
+    return new DelegatingCallback(cb) {
+      @Override
+      public List<String> getExcludeProperties() {
+        return providerExcludeProperties;
+      }
+    };
+  }
+
+  /** Computes a single group of the {@link #lazyProperties} once it is read for the first time. */
+  private Properties computeLazyGroup(
+      LogInterface log, GitCommitIdPlugin.Callback cb, GitPropertyGroup group) {
+    log.info("Computing the lazy property group " + group);
+    PropertyGroupRun groupRun = new PropertyGroupRun(cb, group, null);
+    try {
+      // the same path as the main run: provider, jgit budget, isolation and group budgets
+      runGitWork(log, () -> runPluginWithSelectedProvider(groupRun.getGroupCallback(), null));
+    } catch (GitCommitIdExecutionException | RuntimeException e) {
+      log.warn("Unable to compute the lazy property group " + group + ": " + e.getMessage());
+      return null;
+    }
+    Properties groupProperties = groupRun.getGroupProperties();
+    if (groupProperties != null) {
+      PropertiesFilterer propertiesFilterer = new PropertiesFilterer(log);
+      propertiesFilterer.filter(groupProperties, includeOnlyProperties, cb.getPrefixDot());
+      propertiesFilterer.filterNot(groupProperties, excludeProperties, cb.getPrefixDot());
+      // the derived properties are computed by the main run (see lazyProperty)
+      replaceProperties(log, groupProperties);
+      logProperties(log, groupProperties);
+    }
+    return groupProperties;
+  }
+
+  private void replaceProperties(LogInterface log, Properties properties) {
+    PropertiesReplacer propertiesReplacer =
+        new PropertiesReplacer(
+            log,
+            new PluginParameterExpressionEvaluator(session, mojoExecution),
+            replacementPatterns,
+            evaluateGeneratedValues);
+    propertiesReplacer.performReplacement(properties, replacementProperties);
+  }
+
+  /** Resolves a property that is not computed by the main run, e.g. a lazy property. */
+  @Nullable
+  private String lazyProperty(String key) {
+    Properties projectProperties = project.getProperties();
+    return projectProperties instanceof LazyGitProperties
+        ? projectProperties.getProperty(key)
+        : null;
+  }
+
+  /**
+   * Determines if the core takes the branch from a detected build server instead of the checked
+   * out branch (see {@link #useBranchNameFromBuildEnvironment}).
+   */
+  private boolean isBuildServerBranchAvailable(LogInterface log) {
+    String branch =
+        BuildServerDataProvider.getBuildServerProvider(getCustomSystemEnv(), log).getBuildBranch();
+    return branch != null && !branch.isEmpty();
+  }
+
+  /**
+   * Mirrors what {@link GitCommitIdPlugin#runPlugin} does once the git data has been loaded, for
+   * properties that were resolved without a git provider.
+   */
+  private void runPluginWithoutGitProvider(GitCommitIdPlugin.Callback cb, Properties properties)
+      throws GitCommitIdExecutionException {
+    PropertiesFilterer propertiesFilterer = new PropertiesFilterer(cb.getLogInterface());
+    propertiesFilterer.filter(properties, cb.getIncludeOnlyProperties(), cb.getPrefixDot());
+    propertiesFilterer.filterNot(properties, cb.getExcludeProperties(), cb.getPrefixDot());
+    cb.performPublishToAllSystemEnvironments(properties);
+
+    cb.performPropertiesReplacement(properties);
+    cb.performPublishToAllSystemEnvironments(properties);
+  }
+
   @Nullable
   private Properties getContextProperties(MavenProject project) {
     Object stored = project.getContextValue(CONTEXT_KEY);
-    if (stored instanceof Properties) {
-      return (Properties) stored;
+    if (stored instanceof CompactProperties) {
+      // a mutable copy, the stored snapshot is shared by all projects
+      return ((CompactProperties) stored).toProperties();
     }
     return null;
   }
@@ -1470,18 +2645,28 @@ public class GitCommitIdMojo extends AbstractMojo {
     }
   }
 
-  private void publishPropertiesInto(Properties propertiesToPublish, Properties propertiesTarget) {
-    for (String propertyName : propertiesToPublish.stringPropertyNames()) {
-      propertiesTarget.setProperty(propertyName, propertiesToPublish.getProperty(propertyName));
-    }
+  private void publishPropertiesInto(
+      CompactProperties propertiesToPublish, Properties propertiesTarget) {
+    PropertiesPublisher.publish(propertiesToPublish, propertiesTarget);
   }
 
-  private void appendPropertiesToReactorProjects(LogInterface log, Properties propertiesToPublish) {
+  private void appendPropertiesToReactorProjects(
+      LogInterface log, CompactProperties propertiesToPublish, boolean storeInContext) {
+    // every execution publishes the same properties, only the first one (or one that changed the
+    // properties, e.g. with another prefix) needs to touch all projects
+    if (storeInContext && propertiesToPublish.equals(project.getContextValue(CONTEXT_KEY))) {
+      log.debug("Properties have already been added to all projects");
+      return;
+    }
     for (MavenProject mavenProject : reactorProjects) {
-      log.debug("Adding properties to project: '" + mavenProject.getName() + "'");
+      LevelAwareLog.debug(
+          log, () -> "Adding properties to project: '" + mavenProject.getName() + "'");
 
       publishPropertiesInto(propertiesToPublish, mavenProject.getProperties());
-      mavenProject.setContextValue(CONTEXT_KEY, propertiesToPublish);
+      if (storeInContext) {
+        // the snapshot is immutable and can be shared by all projects
+        mavenProject.setContextValue(CONTEXT_KEY, propertiesToPublish);
+      }
     }
     log.info("Added properties to '" + reactorProjects.size() + "' projects");
   }
@@ -1497,6 +2682,9 @@ public class GitCommitIdMojo extends AbstractMojo {
   }
 
   private void logProperties(LogInterface log, Properties propertiesToPublish) {
+    if (!LevelAwareLog.isInfoEnabled(log)) {
+      return;
+    }
     for (String propertyName : propertiesToPublish.stringPropertyNames()) {
       log.info("including property '" + propertyName + "' in results");
     }
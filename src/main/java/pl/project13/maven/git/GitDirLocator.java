@@ -24,6 +24,7 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Locale;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.apache.maven.project.MavenProject;
@@ -163,6 +164,72 @@ public class GitDirLocator {
     return fileLocation;
   }
 
+  /**
+   * Checks if the given .git directory stores its references in the <a
+   * href="https://git-scm.com/docs/reftable">reftable</a> format instead of loose and packed ref
+   * files. Such repositories declare {@code extensions.refStorage = reftable} in their config and
+   * keep the block-indexed tables in the {@code reftable/} directory.
+   *
+   * <p>JGit opens these repositories with its reftable based ref database, so branch, tag and
+   * describe lookups are served by the tables directly. Code that reads ref files by hand must not
+   * be used for such repositories, since {@code HEAD} and {@code refs/} only contain placeholders.
+   *
+   * @param dotGitDirectory The .git directory of the repository.
+   * @return {@code true} if the repository uses the reftable ref storage, {@code false} otherwise.
+   */
+  public static boolean isReftableRepository(@Nullable File dotGitDirectory) {
+    if (!isExistingDirectory(dotGitDirectory)) {
+      return false;
+    }
+    String refStorage =
+        readConfigValue(new File(dotGitDirectory, "config"), "extensions", "refstorage");
+    if (refStorage != null) {
+      return refStorage.equalsIgnoreCase("reftable");
+    }
+    return new File(new File(dotGitDirectory, "reftable"), "tables.list").isFile();
+  }
+
+  /**
+   * Reads a single value from a git config file without loading the whole config through JGit.
+   * Section and key names are matched case-insensitive, like git does.
+   *
+   * @return The (last) value of the given key, or {@code null} if the file or key does not exist.
+   */
+  @Nullable
+  private static String readConfigValue(
+      @Nonnull File configFile, @Nonnull String section, @Nonnull String key) {
+    if (!configFile.isFile()) {
+      return null;
+    }
+    String value = null;
+    try (BufferedReader reader = new BufferedReader(new FileReader(configFile))) {
+      boolean inSection = false;
+      String line;
+      while ((line = reader.readLine()) != null) {
+        line = line.trim();
+        if (line.isEmpty() || line.startsWith("#") || line.startsWith(";")) {
+          continue;
+        }
+        if (line.startsWith("[")) {
+          int end = line.indexOf(']');
+          String name = end > 0 ? line.substring(1, end).trim() : "";
+          inSection = name.equalsIgnoreCase(section);
+          continue;
+        }
+        int separator = line.indexOf('=');
+        if (inSection && separator > 0) {
+          String name = line.substring(0, separator).trim().toLowerCase(Locale.ROOT);
+          if (name.equals(key)) {
+            value = line.substring(separator + 1).trim();
+          }
+        }
+      }
+    } catch (IOException e) {
+      return null;
+    }
+    return value;
+  }
+
   /**
    * Helper method to validate that the specified {@code File} is an existing directory.
    *
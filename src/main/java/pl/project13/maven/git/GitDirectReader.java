@@ -0,0 +1,324 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Reads the commit id and the branch of {@code HEAD} straight from the files of a .git directory
+ * ({@code HEAD}, loose ref files and {@code packed-refs}) without opening a repository with JGit
+ * or spawning a native git process.
+ *
+ * <p>Only the plain file based ref storage is supported. For everything else (e.g. repositories
+ * that use the reftable ref storage) the reader gives up and returns {@code null}, so the caller
+ * can fall back to a full git provider.
+ *
+ * @since 7.0.1
+ */
+public class GitDirectReader {
+  private static final String SYMREF_PREFIX = "ref:";
+  private static final int MAX_SYMREF_DEPTH = 5;
+
+  private final File dotGitDirectory;
+  private final File commonDirectory;
+
+  /**
+   * Constructor to encapsulates all references required to read the git files.
+   *
+   * @param dotGitDirectory The .git directory of the repository.
+   * @throws IOException if the {@code commondir} file of a linked worktree can't be read
+   */
+  public GitDirectReader(@Nonnull File dotGitDirectory) throws IOException {
+    this.dotGitDirectory = dotGitDirectory;
+    this.commonDirectory = resolveCommonDirectory(dotGitDirectory);
+  }
+
+  /**
+   * The result of reading {@code HEAD}.
+   */
+  public static class Head {
+    private final String commitId;
+    private final String branch;
+
+    Head(@Nonnull String commitId, @Nullable String branch) {
+      this.commitId = commitId;
+      this.branch = branch;
+    }
+
+    /**
+     * The full id of the commit {@code HEAD} points to.
+     *
+     * @return The full id of the commit {@code HEAD} points to.
+     */
+    @Nonnull
+    public String getCommitId() {
+      return commitId;
+    }
+
+    /**
+     * The short name of the checked out branch (e.g. {@code master}).
+     *
+     * @return The short name of the checked out branch or {@code null} if {@code HEAD} is detached.
+     */
+    @Nullable
+    public String getBranch() {
+      return branch;
+    }
+  }
+
+  /**
+   * Resolves {@code HEAD} to a commit id.
+   *
+   * @return The resolved {@code HEAD} or {@code null} if it can't be resolved by reading the files
+   *     (e.g. an unborn branch, a reftable repository or an unexpected file content).
+   * @throws IOException if one of the files can't be read
+   */
+  @Nullable
+  public Head readHead() throws IOException {
+    if (GitDirLocator.isReftableRepository(commonDirectory)) {
+      return null;
+    }
+    String target = readFirstLine(new File(dotGitDirectory, "HEAD"));
+    String branch = null;
+    int depth = 0;
+    while (target != null && target.startsWith(SYMREF_PREFIX)) {
+      String refName = target.substring(SYMREF_PREFIX.length()).trim();
+      if (branch == null) {
+        branch = refName;
+      }
+      if (++depth > MAX_SYMREF_DEPTH) {
+        return null;
+      }
+      target = resolveRef(refName);
+    }
+    if (target == null || !isObjectId(target)) {
+      return null;
+    }
+    return new Head(target, branch == null ? null : shortenRefName(branch));
+  }
+
+  /**
+   * Resolves a single ref, either by its loose ref file or by its entry in {@code packed-refs}.
+   *
+   * @return The object id, the symbolic target (starting with {@code ref:}) or {@code null}.
+   */
+  @Nullable
+  private String resolveRef(@Nonnull String refName) throws IOException {
+    String loose = readFirstLine(new File(refDirectory(refName), refName));
+    if (loose != null) {
+      return loose;
+    }
+    return findPackedRef(new File(commonDirectory, "packed-refs"), refName);
+  }
+
+  /**
+   * Linked worktrees keep their own {@code HEAD} and per-worktree refs, all other refs are shared
+   * through the common directory.
+   */
+  private File refDirectory(@Nonnull String refName) {
+    if (refName.startsWith("refs/") && !refName.startsWith("refs/worktree/")
+        && !refName.startsWith("refs/bisect/")) {
+      return commonDirectory;
+    }
+    return dotGitDirectory;
+  }
+
+  /**
+   * Looks up a ref in a {@code packed-refs} file. Files that declare the {@code sorted} trait in
+   * their header (which git always writes nowadays) are memory mapped and binary searched, older
+   * files are scanned line by line.
+   *
+   * @return The object id of the ref or {@code null} if the ref is not packed.
+   */
+  @Nullable
+  static String findPackedRef(@Nonnull File packedRefs, @Nonnull String refName)
+      throws IOException {
+    if (!packedRefs.isFile()) {
+      return null;
+    }
+    try (FileChannel channel = FileChannel.open(packedRefs.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size == 0 || size > Integer.MAX_VALUE) {
+        return null;
+      }
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      byte[] name = refName.getBytes(StandardCharsets.UTF_8);
+      int start = 0;
+      boolean sorted = false;
+      if (buffer.get(0) == '#') {
+        start = nextLine(buffer, 0, (int) size);
+        String header = decode(buffer, 0, start);
+        sorted = (" " + header.trim() + " ").contains(" sorted ");
+      }
+      if (sorted) {
+        return binarySearch(buffer, start, (int) size, name);
+      }
+      return linearSearch(buffer, start, (int) size, name);
+    }
+  }
+
+  @Nullable
+  private static String binarySearch(MappedByteBuffer buffer, int lo, int hi, byte[] name) {
+    // invariant: lo always points to the start of a line
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      int lineStart = mid;
+      while (lineStart > lo && buffer.get(lineStart - 1) != '\n') {
+        lineStart--;
+      }
+      // peeled lines ('^<id>') belong to the ref above them and are skipped
+      int record = lineStart;
+      while (record < hi && buffer.get(record) == '^') {
+        record = nextLine(buffer, record, hi);
+      }
+      if (record >= hi) {
+        hi = lineStart;
+        continue;
+      }
+      int end = lineEnd(buffer, record, hi);
+      int separator = indexOf(buffer, record, end, (byte) ' ');
+      if (separator < 0) {
+        return null;
+      }
+      int cmp = compare(buffer, separator + 1, end, name);
+      if (cmp == 0) {
+        return decode(buffer, record, separator);
+      } else if (cmp < 0) {
+        lo = nextLine(buffer, record, hi);
+      } else {
+        hi = lineStart;
+      }
+    }
+    return null;
+  }
+
+  @Nullable
+  private static String linearSearch(MappedByteBuffer buffer, int start, int size, byte[] name) {
+    for (int line = start; line < size; line = nextLine(buffer, line, size)) {
+      int end = lineEnd(buffer, line, size);
+      int separator = indexOf(buffer, line, end, (byte) ' ');
+      if (buffer.get(line) != '^' && separator > 0
+          && compare(buffer, separator + 1, end, name) == 0) {
+        return decode(buffer, line, separator);
+      }
+    }
+    return null;
+  }
+
+  private static int compare(MappedByteBuffer buffer, int from, int to, byte[] name) {
+    int length = to - from;
+    for (int i = 0; i < Math.min(length, name.length); i++) {
+      int cmp = (buffer.get(from + i) & 0xff) - (name[i] & 0xff);
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    return length - name.length;
+  }
+
+  private static int nextLine(MappedByteBuffer buffer, int from, int limit) {
+    int newline = indexOf(buffer, from, limit, (byte) '\n');
+    return newline < 0 ? limit : newline + 1;
+  }
+
+  private static int lineEnd(MappedByteBuffer buffer, int from, int limit) {
+    int end = indexOf(buffer, from, limit, (byte) '\n');
+    if (end < 0) {
+      end = limit;
+    }
+    if (end > from && buffer.get(end - 1) == '\r') {
+      end--;
+    }
+    return end;
+  }
+
+  private static int indexOf(MappedByteBuffer buffer, int from, int to, byte b) {
+    for (int i = from; i < to; i++) {
+      if (buffer.get(i) == b) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static String decode(MappedByteBuffer buffer, int from, int to) {
+    byte[] bytes = new byte[to - from];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = buffer.get(from + i);
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Nullable
+  private static String readFirstLine(@Nonnull File file) throws IOException {
+    if (!file.isFile()) {
+      return null;
+    }
+    String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    int newline = content.indexOf('\n');
+    String line = (newline < 0 ? content : content.substring(0, newline)).trim();
+    return line.isEmpty() ? null : line;
+  }
+
+  /**
+   * Resolves the directory that holds the shared refs, objects and config (the .git directory
+   * itself, unless it belongs to a linked worktree).
+   */
+  static File resolveCommonDirectory(@Nonnull File dotGitDirectory) throws IOException {
+    String commonDir = readFirstLine(new File(dotGitDirectory, "commondir"));
+    if (commonDir == null) {
+      return dotGitDirectory;
+    }
+    File common = new File(commonDir);
+    return common.isAbsolute() ? common : new File(dotGitDirectory, commonDir);
+  }
+
+  private static boolean isObjectId(@Nonnull String value) {
+    // SHA-1 or SHA-256 object ids
+    if (value.length() != 40 && value.length() != 64) {
+      return false;
+    }
+    for (int i = 0; i < value.length(); i++) {
+      if (Character.digit(value.charAt(i), 16) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Shortens a ref name the same way JGit does (e.g. {@code refs/heads/master} to {@code master}).
+   */
+  private static String shortenRefName(@Nonnull String refName) {
+    for (String prefix : new String[] {"refs/heads/", "refs/tags/", "refs/remotes/"}) {
+      if (refName.startsWith(prefix)) {
+        return refName.substring(prefix.length());
+      }
+    }
+    return refName;
+  }
+}
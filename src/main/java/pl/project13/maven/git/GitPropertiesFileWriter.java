@@ -0,0 +1,286 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.TreeSet;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import pl.project13.core.CommitIdPropertiesOutputFormat;
+import pl.project13.core.GitCommitIdExecutionException;
+import pl.project13.core.PropertiesFileGenerator;
+import pl.project13.core.log.LogInterface;
+import pl.project13.core.util.BuildFileChangeListener;
+import pl.project13.core.util.GenericFileManager;
+
+/**
+ * Writes the generated properties file. The content is deterministic (sorted keys, no timestamp
+ * comment, {@code \n} line separators), so the same properties always result in the same bytes. An
+ * existing file is only replaced (and reported to the {@link BuildFileChangeListener}) if its
+ * content changed, which keeps incremental builds (e.g. jar packaging or the build cache)
+ * up-to-date.
+ *
+ * <p>The file is written through a temporary file that atomically replaces it. Concurrent writers
+ * of the same file (e.g. parallel executions that share an output directory) are serialized (see
+ * {@link AtomicFiles#withLock}), so only the first one actually writes the file while the others
+ * find it up-to-date.
+ *
+ * <p>Like the generator of the plugin core, a file that only differs in the {@code build.time} is
+ * not rewritten either (see
+ * https://github.com/git-commit-id/git-commit-id-maven-plugin/issues/151).
+ */
+final class GitPropertiesFileWriter {
+  static final String COMMENT = "Generated by Git-Commit-Id-Plugin";
+
+  private final LogInterface log;
+  private final BuildFileChangeListener buildFileChangeListener;
+
+  GitPropertiesFileWriter(
+      @Nonnull LogInterface log, @Nonnull BuildFileChangeListener buildFileChangeListener) {
+    this.log = log;
+    this.buildFileChangeListener = buildFileChangeListener;
+  }
+
+  /**
+   * Writes the properties unless the file already contains them.
+   *
+   * @param properties The properties to write.
+   * @param projectDir The base directory of the project, relative file names are resolved against.
+   * @param propertiesFilename The file to write.
+   * @param format The format of the file.
+   * @param sourceCharset The charset of the file (a properties file with escaped unicode is always
+   *     written as ISO-8859-1).
+   * @param escapeUnicode {@code true} if non ascii characters of a properties file should be
+   *     escaped.
+   * @param prefixDot The prefix (with the trailing dot) of the properties.
+   * @param projectName The name of the project (for logging).
+   * @return {@code true} if the file was written, {@code false} if it was up-to-date.
+   * @throws GitCommitIdExecutionException if the file can't be written.
+   */
+  boolean write(
+      @Nonnull Properties properties,
+      @Nonnull File projectDir,
+      @Nonnull File propertiesFilename,
+      @Nonnull CommitIdPropertiesOutputFormat format,
+      @Nonnull Charset sourceCharset,
+      boolean escapeUnicode,
+      @Nonnull String prefixDot,
+      @Nullable String projectName)
+      throws GitCommitIdExecutionException {
+    File gitPropsFile =
+        PropertiesFileGenerator.craftPropertiesOutputFile(projectDir, propertiesFilename);
+    Charset charset = fileCharset(format, sourceCharset, escapeUnicode);
+    byte[] content = render(properties, format, escapeUnicode).getBytes(charset);
+    Path target = gitPropsFile.getAbsoluteFile().toPath().normalize();
+    boolean written;
+    try {
+      written =
+          AtomicFiles.withLock(
+              target,
+              log,
+              () -> {
+                // a concurrent writer may have written the same content in the meantime
+                if (isUpToDate(gitPropsFile, content, properties, format, charset, prefixDot)) {
+                  log.info(
+                      "Properties file ["
+                          + gitPropsFile.getAbsolutePath()
+                          + "] is up-to-date (for project "
+                          + projectName
+                          + ")...");
+                  return false;
+                }
+                log.info(
+                    "Writing properties file ["
+                        + gitPropsFile.getAbsolutePath()
+                        + "] (for project "
+                        + projectName
+                        + ")...");
+                AtomicFiles.write(target, content);
+                return true;
+              });
+    } catch (IOException e) {
+      throw new GitCommitIdExecutionException("Cannot create custom git properties file", e);
+    }
+    if (!written) {
+      return false;
+    }
+    buildFileChangeListener.changed(gitPropsFile);
+    return true;
+  }
+
+  static Charset fileCharset(
+      CommitIdPropertiesOutputFormat format, Charset sourceCharset, boolean escapeUnicode) {
+    return format == CommitIdPropertiesOutputFormat.PROPERTIES && escapeUnicode
+        ? StandardCharsets.ISO_8859_1
+        : sourceCharset;
+  }
+
+  private boolean isUpToDate(
+      File gitPropsFile,
+      byte[] content,
+      Properties properties,
+      CommitIdPropertiesOutputFormat format,
+      Charset charset,
+      String prefixDot) {
+    if (!gitPropsFile.isFile()) {
+      return false;
+    }
+    try {
+      if (gitPropsFile.length() == content.length
+          && Arrays.equals(Files.readAllBytes(gitPropsFile.toPath()), content)) {
+        return true;
+      }
+      // a file that only differs in the build time is kept
+      Properties persistedProperties =
+          GenericFileManager.readProperties(format, gitPropsFile, charset);
+      Properties propertiesCopy = (Properties) properties.clone();
+      String buildTimeProperty = prefixDot + "build.time";
+      propertiesCopy.setProperty(buildTimeProperty, "");
+      persistedProperties.setProperty(buildTimeProperty, "");
+      return propertiesCopy.equals(persistedProperties);
+    } catch (IOException | GitCommitIdExecutionException | RuntimeException e) {
+      log.debug("Cannot read the existing properties file: " + e.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * Renders the properties in a deterministic way.
+   *
+   * @param properties The properties to render.
+   * @param format The format of the file.
+   * @param escapeUnicode {@code true} if non ascii characters of a properties file should be
+   *     escaped.
+   * @return The content of the file.
+   */
+  static String render(
+      Properties properties, CommitIdPropertiesOutputFormat format, boolean escapeUnicode) {
+    StringBuilder content = new StringBuilder();
+    if (format == CommitIdPropertiesOutputFormat.JSON) {
+      content.append('{');
+      String separator = "\n";
+      for (String key : new TreeSet<>(properties.stringPropertyNames())) {
+        content.append(separator).append("  ");
+        appendJsonString(content, key);
+        content.append(" : ");
+        appendJsonString(content, properties.getProperty(key));
+        separator = ",\n";
+      }
+      content.append("\n}\n");
+    } else {
+      content.append('#').append(COMMENT).append('\n');
+      for (String key : new TreeSet<>(properties.stringPropertyNames())) {
+        appendProperty(content, key, true, escapeUnicode);
+        content.append('=');
+        appendProperty(content, properties.getProperty(key), false, escapeUnicode);
+        content.append('\n');
+      }
+    }
+    return content.toString();
+  }
+
+  /** Escapes like {@link Properties#store(java.io.Writer, String)}. */
+  private static void appendProperty(
+      StringBuilder content, String value, boolean isKey, boolean escapeUnicode) {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case ' ':
+          if (i == 0 || isKey) {
+            content.append('\\');
+          }
+          content.append(' ');
+          break;
+        case '\t':
+          content.append("\\t");
+          break;
+        case '\n':
+          content.append("\\n");
+          break;
+        case '\r':
+          content.append("\\r");
+          break;
+        case '\f':
+          content.append("\\f");
+          break;
+        case '\\':
+        case '=':
+        case ':':
+        case '#':
+        case '!':
+          content.append('\\').append(c);
+          break;
+        default:
+          if ((c < 0x20 || c > 0x7e) && escapeUnicode) {
+            appendUnicodeEscape(content, c);
+          } else {
+            content.append(c);
+          }
+      }
+    }
+  }
+
+  private static void appendJsonString(StringBuilder content, String value) {
+    content.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"':
+          content.append("\\\"");
+          break;
+        case '\\':
+          content.append("\\\\");
+          break;
+        case '\t':
+          content.append("\\t");
+          break;
+        case '\n':
+          content.append("\\n");
+          break;
+        case '\r':
+          content.append("\\r");
+          break;
+        default:
+          if (c < 0x20) {
+            appendUnicodeEscape(content, c);
+          } else {
+            content.append(c);
+          }
+      }
+    }
+    content.append('"');
+  }
+
+  private static void appendUnicodeEscape(StringBuilder content, char c) {
+    content.append("\\u");
+    String hex = Integer.toHexString(c).toUpperCase(Locale.ROOT);
+    for (int padding = hex.length(); padding < 4; padding++) {
+      content.append('0');
+    }
+    content.append(hex);
+  }
+}
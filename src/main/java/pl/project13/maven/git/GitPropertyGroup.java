@@ -0,0 +1,176 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import pl.project13.core.PropertiesFilterer;
+
+/**
+ * Groups the properties the plugin can generate by the git work that is required to compute them.
+ * The keys are listed without the configured prefix (e.g. {@code commit.id.abbrev} for {@code
+ * git.commit.id.abbrev}).
+ *
+ * @since 7.0.1
+ */
+public enum GitPropertyGroup {
+  /** Properties about the build itself (they don't need the repository at all). */
+  BUILD(
+      "build.user.name",
+      "build.user.email",
+      "build.time",
+      "build.version",
+      "build.host",
+      "build.number",
+      "build.number.unique"),
+  /** The id of the commit (flat or full, depending on the commitIdGenerationMode). */
+  COMMIT_ID("commit.id", "commit.id.full", "commit.id.abbrev"),
+  /** The name of the current branch. */
+  BRANCH("branch"),
+  /** Author, committer, message and times of the commit. */
+  COMMIT_METADATA(
+      "commit.user.name",
+      "commit.user.email",
+      "commit.message.full",
+      "commit.message.short",
+      "commit.time",
+      "commit.author.time",
+      "commit.committer.time"),
+  /** The url of the remote origin. */
+  REMOTE("remote.origin.url"),
+  /** The output of {@code git describe}. */
+  DESCRIBE("commit.id.describe", "commit.id.describe-short"),
+  /** The state of the working tree. */
+  DIRTY("dirty"),
+  /** The tags that point to the commit. */
+  TAGS("tags", "tag"),
+  /** The closest tag that is reachable from the commit. */
+  CLOSEST_TAG("closest.tag.name", "closest.tag.commit.count"),
+  /** The number of commits reachable from the commit. */
+  TOTAL_COMMIT_COUNT("total.commit.count"),
+  /** The distance of the local branch to its remote-tracking branch. */
+  AHEAD_BEHIND("local.branch.ahead", "local.branch.behind"),
+  ;
+
+  private final List<String> keys;
+
+  GitPropertyGroup(String... keys) {
+    this.keys = Collections.unmodifiableList(Arrays.asList(keys));
+  }
+
+  /**
+   * The keys of all properties that belong to this group (without prefix).
+   *
+   * @return The keys of all properties that belong to this group (without prefix).
+   */
+  public List<String> getKeys() {
+    return keys;
+  }
+
+  /**
+   * Java regexes that match exactly the (prefixed) keys of this group, suitable for the {@code
+   * includeOnlyProperties} and {@code excludeProperties} of the plugin core.
+   *
+   * @param prefixDot The prefix of all properties including the trailing dot (e.g. {@code git.})
+   * @return One regex per key of this group.
+   */
+  List<String> exactKeyPatterns(@Nonnull String prefixDot) {
+    return keys.stream()
+        .map(key -> "^" + Pattern.quote(prefixDot + key) + "$")
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Determines the groups that have at least one property left after the {@code
+   * includeOnlyProperties} and {@code excludeProperties} filters have been applied. The filters are
+   * evaluated by the plugin's {@link PropertiesFilterer}: each entry is a java regex that
+   * needs to match the full (prefixed) property key as a whole.
+   *
+   * @param prefixDot The prefix of all properties including the trailing dot (e.g. {@code git.})
+   * @param includeOnlyProperties The configured {@code includeOnlyProperties} (may be {@code null})
+   * @param excludeProperties The configured {@code excludeProperties} (may be {@code null})
+   * @return All groups that need to be computed.
+   */
+  public static Set<GitPropertyGroup> selectedGroups(
+      @Nonnull String prefixDot,
+      @Nullable List<String> includeOnlyProperties,
+      @Nullable List<String> excludeProperties) {
+    Set<GitPropertyGroup> selected = EnumSet.noneOf(GitPropertyGroup.class);
+    for (GitPropertyGroup group : values()) {
+      for (String key : group.keys) {
+        String prefixedKey = prefixDot + key;
+        if (PropertiesFilterer.isIncluded(prefixedKey, includeOnlyProperties, excludeProperties)) {
+          selected.add(group);
+          break;
+        }
+      }
+    }
+    return selected;
+  }
+
+  /**
+   * Determines the (prefixed) keys of this group that are left after the {@code
+   * includeOnlyProperties} and {@code excludeProperties} filters have been applied.
+   *
+   * @param prefixDot The prefix of all properties including the trailing dot (e.g. {@code git.})
+   * @param includeOnlyProperties The configured {@code includeOnlyProperties} (may be {@code null})
+   * @param excludeProperties The configured {@code excludeProperties} (may be {@code null})
+   * @return The prefixed keys of this group that need to be computed.
+   */
+  public List<String> selectedKeys(
+      @Nonnull String prefixDot,
+      @Nullable List<String> includeOnlyProperties,
+      @Nullable List<String> excludeProperties) {
+    return keys.stream()
+        .map(key -> prefixDot + key)
+        .filter(key -> PropertiesFilterer.isIncluded(key, includeOnlyProperties, excludeProperties))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Resolves a group by the name used in the plugin configuration. The name is matched case
+   * insensitive and ignoring {@code _} and {@code -}, so {@code aheadBehind}, {@code ahead-behind}
+   * and {@code AHEAD_BEHIND} all refer to {@link #AHEAD_BEHIND}.
+   *
+   * @param name The name of the group as used in the plugin configuration.
+   * @return The group or {@code null} if there is no group with that name.
+   */
+  @Nullable
+  public static GitPropertyGroup fromConfigName(@Nonnull String name) {
+    String normalized = normalize(name);
+    for (GitPropertyGroup group : values()) {
+      if (normalize(group.name()).equals(normalized)) {
+        return group;
+      }
+    }
+    return null;
+  }
+
+  private static String normalize(String name) {
+    return name.replace("_", "").replace("-", "").trim().toLowerCase(Locale.ROOT);
+  }
+}
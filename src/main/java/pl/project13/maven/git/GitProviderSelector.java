@@ -0,0 +1,267 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import pl.project13.core.log.LogInterface;
+
+/**
+ * Chooses between the {@code jgit} implementation and the native git executable for the {@code
+ * auto} git provider. {@code jgit} avoids forking processes and usually wins on small
+ * repositories, while the native git executable wins on huge working trees and histories.
+ *
+ * <p>The choice is based on cheap signals that can be read from the .git directory without opening
+ * the repository (index entry count, pack size and ref count). Optionally the measured durations
+ * of previous runs are persisted and, once both providers have been measured, the faster one is
+ * used.
+ *
+ * @since 7.0.1
+ */
+public class GitProviderSelector {
+  /** Index entries above which the native git executable is preferred (dirty check cost). */
+  static final long NATIVE_INDEX_ENTRIES_THRESHOLD = 50_000;
+  /** Pack size (in bytes) above which the native git executable is preferred (history walks). */
+  static final long NATIVE_PACK_SIZE_THRESHOLD = 1024L * 1024L * 1024L;
+  /** Ref count above which the native git executable is preferred (tag lookups). */
+  static final long NATIVE_REF_COUNT_THRESHOLD = 20_000;
+  /** Estimated average length of a line in the {@code packed-refs} file. */
+  private static final long AVERAGE_PACKED_REF_LINE_LENGTH = 60;
+  /** Weight of a new measurement in the persisted moving average. */
+  private static final double TIMING_WEIGHT = 0.3;
+  /** Penalty added to the duration of a failed run, so that the other provider is preferred. */
+  static final long FAILURE_PENALTY_IN_MS = 60_000;
+
+  private final File dotGitDirectory;
+  private final File timingsFile;
+  private final LogInterface log;
+
+  /**
+   * Constructor to encapsulates all references required to select a git provider.
+   *
+   * @param dotGitDirectory The .git directory of the repository.
+   * @param timingsFile The file the measured durations are persisted in, or {@code null} if the
+   *     choice should only be based on the repository size.
+   * @param log The logger to log any messages
+   */
+  public GitProviderSelector(
+      @Nonnull File dotGitDirectory, @Nullable File timingsFile, @Nonnull LogInterface log) {
+    this.dotGitDirectory = dotGitDirectory;
+    this.timingsFile = timingsFile;
+    this.log = log;
+  }
+
+  /**
+   * Selects the git provider for the repository.
+   *
+   * @return {@code true} if the native git executable should be used, {@code false} for {@code
+   *     jgit}.
+   */
+  public boolean selectNativeGit() {
+    Properties timings = loadTimings();
+    String jgitAverage = timings.getProperty(timingKey(false));
+    String nativeAverage = timings.getProperty(timingKey(true));
+    if (jgitAverage != null && nativeAverage != null) {
+      try {
+        boolean nativeGit = Double.parseDouble(nativeAverage) < Double.parseDouble(jgitAverage);
+        log.info(
+            "auto git provider: measured jgit="
+                + jgitAverage
+                + "ms, native="
+                + nativeAverage
+                + "ms, using "
+                + providerName(nativeGit));
+        return nativeGit;
+      } catch (NumberFormatException e) {
+        log.warn("auto git provider: ignoring invalid timings in " + timingsFile);
+      }
+    }
+
+    long indexEntries = countIndexEntries();
+    long packSize = sumPackSizes();
+    long refCount = countRefs();
+    boolean nativeGit =
+        indexEntries > NATIVE_INDEX_ENTRIES_THRESHOLD
+            || packSize > NATIVE_PACK_SIZE_THRESHOLD
+            || refCount > NATIVE_REF_COUNT_THRESHOLD;
+    log.info(
+        "auto git provider: index entries="
+            + indexEntries
+            + ", pack size="
+            + packSize
+            + ", refs="
+            + refCount
+            + ", using "
+            + providerName(nativeGit));
+    return nativeGit;
+  }
+
+  /**
+   * Records how long a run with the given provider took. Does nothing if no timings file is
+   * configured.
+   *
+   * @param nativeGit {@code true} if the native git executable was used, {@code false} for {@code
+   *     jgit}.
+   * @param durationInMs The duration of the run in milliseconds.
+   */
+  public void recordTiming(boolean nativeGit, long durationInMs) {
+    recordAverage(nativeGit, durationInMs);
+  }
+
+  /**
+   * Records that a run with the given provider failed. The failure counts as a run that took
+   * {@link #FAILURE_PENALTY_IN_MS} longer than it did, so a provider that keeps failing is no
+   * longer selected once the other provider has been measured. Does nothing if no timings file is
+   * configured.
+   *
+   * @param nativeGit {@code true} if the native git executable was used, {@code false} for {@code
+   *     jgit}.
+   * @param durationInMs The duration of the run until it failed in milliseconds.
+   */
+  public void recordFailure(boolean nativeGit, long durationInMs) {
+    recordAverage(nativeGit, durationInMs + FAILURE_PENALTY_IN_MS);
+  }
+
+  private void recordAverage(boolean nativeGit, long durationInMs) {
+    if (timingsFile == null) {
+      return;
+    }
+    Path target = timingsFile.toPath();
+    try {
+      // parallel modules record their timings concurrently
+      AtomicFiles.withLock(
+          target,
+          log,
+          () -> {
+            Properties timings = loadTimings();
+            String key = timingKey(nativeGit);
+            double average = durationInMs;
+            String previous = timings.getProperty(key);
+            if (previous != null) {
+              try {
+                average =
+                    (1 - TIMING_WEIGHT) * Double.parseDouble(previous)
+                        + TIMING_WEIGHT * durationInMs;
+              } catch (NumberFormatException e) {
+                // start over with the new measurement
+              }
+            }
+            timings.setProperty(key, String.valueOf(Math.round(average)));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            timings.store(out, "git-commit-id-maven-plugin provider timings");
+            AtomicFiles.write(target, out.toByteArray());
+            return null;
+          });
+    } catch (IOException e) {
+      log.warn("auto git provider: unable to persist timings: " + e.getMessage());
+    }
+  }
+
+  static String providerName(boolean nativeGit) {
+    return nativeGit ? "native" : "jgit";
+  }
+
+  private static String timingKey(boolean nativeGit) {
+    return providerName(nativeGit) + ".averageInMs";
+  }
+
+  private Properties loadTimings() {
+    Properties timings = new Properties();
+    if (timingsFile != null && timingsFile.isFile()) {
+      try (InputStream in = Files.newInputStream(timingsFile.toPath())) {
+        timings.load(in);
+      } catch (IOException | IllegalArgumentException e) {
+        log.warn("auto git provider: unable to read timings: " + e.getMessage());
+      }
+    }
+    return timings;
+  }
+
+  /** Reads the entry count from the header of the index ("DIRC", version, entry count). */
+  long countIndexEntries() {
+    File index = new File(dotGitDirectory, "index");
+    if (!index.isFile()) {
+      return 0;
+    }
+    try (FileChannel channel = FileChannel.open(index.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(12);
+      while (header.hasRemaining() && channel.read(header) >= 0) {
+        // read the complete header
+      }
+      if (header.hasRemaining() || header.getInt(0) != 0x44495243) {
+        return 0;
+      }
+      return Integer.toUnsignedLong(header.getInt(8));
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
+  long sumPackSizes() {
+    File[] packs =
+        new File(commonDirectory(), "objects" + File.separator + "pack")
+            .listFiles((dir, name) -> name.endsWith(".pack"));
+    long size = 0;
+    if (packs != null) {
+      for (File pack : packs) {
+        size += pack.length();
+      }
+    }
+    return size;
+  }
+
+  /** Estimates the packed refs by the file size and counts the loose refs up to the threshold. */
+  long countRefs() {
+    File common = commonDirectory();
+    long refs = new File(common, "packed-refs").length() / AVERAGE_PACKED_REF_LINE_LENGTH;
+    File refsDirectory = new File(common, "refs");
+    if (refsDirectory.isDirectory()) {
+      try (Stream<Path> files = Files.walk(refsDirectory.toPath())) {
+        Iterator<Path> it = files.filter(Files::isRegularFile).iterator();
+        while (it.hasNext() && refs <= NATIVE_REF_COUNT_THRESHOLD) {
+          it.next();
+          refs++;
+        }
+      } catch (IOException | RuntimeException e) {
+        // the estimate is good enough without the loose refs
+      }
+    }
+    return refs;
+  }
+
+  private File commonDirectory() {
+    try {
+      return GitDirectReader.resolveCommonDirectory(dotGitDirectory);
+    } catch (IOException e) {
+      return dotGitDirectory;
+    }
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import pl.project13.core.GitCommitIdExecutionException;
+import pl.project13.core.log.LogInterface;
+
+/**
+ * Bounds the number of executions that do git work at the same time within one scope (e.g. the
+ * Maven session). Executions beyond the limit wait until another execution finished its git work.
+ * Nested git work of the same thread (e.g. a lazy property that gets resolved while git work is
+ * already running) does not need another permit. A cancelled run that is still doing git work keeps
+ * the permit until it has stopped (see {@link #holdUntilStopped}).
+ */
+final class GitWorkScheduler {
+  private static final Map<Object, GitWorkScheduler> SCHEDULERS = new WeakHashMap<>();
+  private static final ThreadLocal<GitWorkScheduler> CURRENT = new ThreadLocal<>();
+
+  private final int maxConcurrentExecutions;
+  private final Semaphore permitPool;
+  private final ThreadLocal<Integer> holdCount = ThreadLocal.withInitial(() -> 0);
+  private final ThreadLocal<List<CancellableGitRun>> cancelledRuns =
+      ThreadLocal.withInitial(ArrayList::new);
+
+  GitWorkScheduler(int maxConcurrentExecutions) {
+    this.maxConcurrentExecutions = maxConcurrentExecutions;
+    this.permitPool = new Semaphore(maxConcurrentExecutions, true);
+  }
+
+  /**
+   * Returns the scheduler of the scope. The first execution of a scope determines the limit.
+   *
+   * @param scope The scope of the scheduler (e.g. the Maven execution request).
+   * @param maxConcurrentExecutions The maximum number of concurrent executions.
+   * @return The scheduler of the scope.
+   */
+  static GitWorkScheduler forScope(@Nonnull Object scope, int maxConcurrentExecutions) {
+    synchronized (SCHEDULERS) {
+      return SCHEDULERS.computeIfAbsent(
+          scope, s -> new GitWorkScheduler(maxConcurrentExecutions));
+    }
+  }
+
+  /**
+   * Runs the git work once a permit is available.
+   *
+   * @param log The logger to report waiting executions.
+   * @param task The git work.
+   * @throws GitCommitIdExecutionException if the git work failed or the thread got interrupted
+   *     while waiting.
+   */
+  void run(@Nonnull LogInterface log, @Nonnull CancellableGitRun.Task task)
+      throws GitCommitIdExecutionException {
+    int held = holdCount.get();
+    if (held == 0 && !permitPool.tryAcquire()) {
+      log.info(
+          "Waiting for one of the "
+              + maxConcurrentExecutions
+              + " concurrent executions to finish its git work");
+      try {
+        permitPool.acquire();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new GitCommitIdExecutionException("Interrupted while waiting to run git", e);
+      }
+    }
+    holdCount.set(held + 1);
+    if (held == 0) {
+      CURRENT.set(this);
+    }
+    try {
+      task.run();
+    } finally {
+      holdCount.set(held);
+      if (held == 0) {
+        holdCount.remove();
+        CURRENT.remove();
+        List<CancellableGitRun> runs = cancelledRuns.get();
+        cancelledRuns.remove();
+        releaseWhenStopped(runs);
+      }
+    }
+  }
+
+  /**
+   * Keeps the permit of the current thread (if it holds one) until the cancelled run has stopped,
+   * so a run that is still inside git does not count as finished.
+   *
+   * @param run The cancelled run.
+   */
+  static void holdUntilStopped(@Nonnull CancellableGitRun run) {
+    GitWorkScheduler scheduler = CURRENT.get();
+    if (scheduler != null) {
+      scheduler.cancelledRuns.get().add(run);
+    }
+  }
+
+  private void releaseWhenStopped(List<CancellableGitRun> runs) {
+    AtomicInteger remaining = new AtomicInteger(runs.size() + 1);
+    Runnable release =
+        () -> {
+          if (remaining.decrementAndGet() == 0) {
+            permitPool.release();
+          }
+        };
+    for (CancellableGitRun run : runs) {
+      run.whenStopped(release);
+    }
+    release.run();
+  }
+}
@@ -0,0 +1,287 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import pl.project13.core.log.LogInterface;
+
+/**
+ * Keeps the properties of the previous execution in a snapshot file together with a fingerprint of
+ * the git files each {@link GitPropertyGroup} depends on. Groups whose inputs did not change since
+ * the snapshot was taken are handed to the plugin core as already known values, which the core
+ * reuses instead of computing them again. After a commit only the groups that depend on {@code
+ * HEAD} are recomputed, after a fetch only the groups that depend on the remote-tracking refs.
+ *
+ * <p>The inputs of each group:
+ *
+ * <ul>
+ *   <li>{@code HEAD}: the commit id, the commit metadata.
+ *   <li>{@code HEAD} and the {@code shallow} file: the total commit count.
+ *   <li>{@code HEAD}, the {@code shallow} file and the tags: describe, tags, closest tag.
+ *   <li>{@code HEAD}, the {@code shallow} file, the remote-tracking refs and the config:
+ *       ahead/behind (offline only, online the core fetches first).
+ *   <li>the config: the remote origin url.
+ * </ul>
+ *
+ * <p>The branch (it may come from the build environment), the dirty flag (an edit of the working
+ * tree does not touch any file in the .git directory) and the build properties are always
+ * recomputed. The same goes for describe when it appends a dirty marker.
+ */
+final class IncrementalSnapshot {
+  private static final String CONFIGURATION_KEY = "configuration";
+  private static final String FINGERPRINT_PREFIX = "fingerprint.";
+  private static final String VALUE_PREFIX = "value.";
+
+  private final File dotGitDirectory;
+  private final File commonDirectory;
+  private final File snapshotFile;
+  private final String configuration;
+  private final LogInterface log;
+  private final Map<GitPropertyGroup, String> fingerprints;
+
+  /**
+   * Constructor to encapsulates all references required to reuse a snapshot.
+   *
+   * @param dotGitDirectory The .git directory of the repository.
+   * @param snapshotFile The file the snapshot is stored in.
+   * @param configuration A representation of all settings that influence the values; a snapshot
+   *     taken with another configuration is never reused.
+   * @param cacheableGroups The groups that may be reused at all.
+   * @param log The logger to log any messages
+   */
+  IncrementalSnapshot(
+      @Nonnull File dotGitDirectory,
+      @Nonnull File snapshotFile,
+      @Nonnull String configuration,
+      @Nonnull Set<GitPropertyGroup> cacheableGroups,
+      @Nonnull LogInterface log) {
+    this.dotGitDirectory = dotGitDirectory;
+    this.commonDirectory = commonDirectory(dotGitDirectory);
+    this.snapshotFile = snapshotFile;
+    this.configuration = configuration;
+    this.log = log;
+    this.fingerprints = fingerprint(cacheableGroups);
+  }
+
+  /**
+   * Loads the values of all groups whose inputs did not change since the snapshot was taken.
+   *
+   * @return The reusable values (empty if nothing can be reused).
+   */
+  Properties loadReusableProperties() {
+    Properties reusable = new Properties();
+    if (fingerprints.isEmpty() || !snapshotFile.isFile()) {
+      return reusable;
+    }
+    Properties snapshot = new Properties();
+    try (InputStream in = Files.newInputStream(snapshotFile.toPath())) {
+      snapshot.load(in);
+    } catch (IOException | IllegalArgumentException e) {
+      log.warn("Unable to read the snapshot " + snapshotFile + ": " + e.getMessage());
+      return reusable;
+    }
+    if (!configuration.equals(snapshot.getProperty(CONFIGURATION_KEY))) {
+      log.info("The configuration changed since the snapshot was taken, recomputing everything");
+      return reusable;
+    }
+    List<GitPropertyGroup> reused = new ArrayList<>();
+    for (Map.Entry<GitPropertyGroup, String> fingerprint : fingerprints.entrySet()) {
+      GitPropertyGroup group = fingerprint.getKey();
+      if (!fingerprint.getValue().equals(snapshot.getProperty(FINGERPRINT_PREFIX + group))) {
+        continue;
+      }
+      String groupPrefix = VALUE_PREFIX + group + ".";
+      for (String key : snapshot.stringPropertyNames()) {
+        if (key.startsWith(groupPrefix)) {
+          reusable.setProperty(key.substring(groupPrefix.length()), snapshot.getProperty(key));
+        }
+      }
+      reused.add(group);
+    }
+    log.info("Reusing the property groups " + reused + " from " + snapshotFile);
+    return reusable;
+  }
+
+  /**
+   * Stores the values of all cacheable groups that were actually computed.
+   *
+   * @param properties The computed properties (before any replacement was applied).
+   * @param prefixDot The prefix of all properties including the trailing dot (e.g. {@code git.})
+   * @param degradedGroups The groups that only hold a fallback or placeholder value (e.g. because
+   *     they exceeded their budget), they are recomputed by the next execution.
+   */
+  void store(
+      @Nonnull Properties properties,
+      @Nonnull String prefixDot,
+      @Nonnull Set<GitPropertyGroup> degradedGroups) {
+    Properties snapshot = new Properties();
+    snapshot.setProperty(CONFIGURATION_KEY, configuration);
+    for (Map.Entry<GitPropertyGroup, String> fingerprint : fingerprints.entrySet()) {
+      GitPropertyGroup group = fingerprint.getKey();
+      if (degradedGroups.contains(group)) {
+        continue;
+      }
+      boolean stored = false;
+      for (String key : group.getKeys()) {
+        String value = properties.getProperty(prefixDot + key);
+        if (value != null) {
+          snapshot.setProperty(VALUE_PREFIX + group + "." + prefixDot + key, value);
+          stored = true;
+        }
+      }
+      if (stored) {
+        snapshot.setProperty(FINGERPRINT_PREFIX + group, fingerprint.getValue());
+      }
+    }
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      snapshot.store(out, "git-commit-id-maven-plugin snapshot");
+      AtomicFiles.write(snapshotFile.toPath(), out.toByteArray());
+    } catch (IOException e) {
+      log.warn("Unable to write the snapshot " + snapshotFile + ": " + e.getMessage());
+    }
+  }
+
+  /** Computes the fingerprint of the inputs of each group (groups without inputs are skipped). */
+  private Map<GitPropertyGroup, String> fingerprint(Set<GitPropertyGroup> cacheableGroups) {
+    Map<GitPropertyGroup, String> result = new EnumMap<>(GitPropertyGroup.class);
+    String head = headFingerprint();
+    if (head == null) {
+      // e.g. an unborn branch or the reftable ref storage, nothing can be reused safely
+      return result;
+    }
+    // the commits that are counted change when a shallow clone is deepened or unshallowed
+    String history = head + "|" + fileFingerprint(new File(commonDirectory, "shallow"));
+    String tags = null;
+    String remotes = null;
+    String config = null;
+    for (GitPropertyGroup group : cacheableGroups) {
+      switch (group) {
+        case COMMIT_ID:
+        case COMMIT_METADATA:
+          result.put(group, head);
+          break;
+        case TOTAL_COMMIT_COUNT:
+          result.put(group, history);
+          break;
+        case DESCRIBE:
+        case TAGS:
+        case CLOSEST_TAG:
+          tags = tags == null ? refsFingerprint("refs/tags") : tags;
+          result.put(group, history + "|" + tags);
+          break;
+        case AHEAD_BEHIND:
+          remotes = remotes == null ? refsFingerprint("refs/remotes") : remotes;
+          config = config == null ? fileFingerprint(new File(commonDirectory, "config")) : config;
+          result.put(group, history + "|" + remotes + "|" + config);
+          break;
+        case REMOTE:
+          config = config == null ? fileFingerprint(new File(commonDirectory, "config")) : config;
+          result.put(group, config);
+          break;
+        default:
+          // always recomputed
+      }
+    }
+    return result;
+  }
+
+  private static File commonDirectory(File dotGitDirectory) {
+    try {
+      return GitDirectReader.resolveCommonDirectory(dotGitDirectory);
+    } catch (IOException e) {
+      return dotGitDirectory;
+    }
+  }
+
+  @Nullable
+  private String headFingerprint() {
+    try {
+      GitDirectReader.Head head = new GitDirectReader(dotGitDirectory).readHead();
+      if (head == null) {
+        return null;
+      }
+      return head.getCommitId() + "@" + head.getBranch();
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /** Fingerprints the loose refs below the given path and the {@code packed-refs} file. */
+  private String refsFingerprint(String refsPath) {
+    StringBuilder fingerprint = new StringBuilder();
+    fingerprint.append(fileFingerprint(new File(commonDirectory, "packed-refs"))).append('\n');
+    File refs = new File(commonDirectory, refsPath);
+    if (refs.isDirectory()) {
+      try (Stream<Path> files = Files.walk(refs.toPath())) {
+        List<String> entries =
+            files
+                .filter(Files::isRegularFile)
+                .map(file -> refs.toPath().relativize(file) + "=" + fileFingerprint(file.toFile()))
+                .collect(Collectors.toList());
+        Collections.sort(entries);
+        entries.forEach(entry -> fingerprint.append(entry).append('\n'));
+      } catch (IOException | RuntimeException e) {
+        // an unreadable ref must never match the snapshot
+        fingerprint.append(System.nanoTime());
+      }
+    }
+    return sha1(fingerprint.toString());
+  }
+
+  private static String fileFingerprint(File file) {
+    if (!file.isFile()) {
+      return "-";
+    }
+    return file.lastModified() + ":" + file.length();
+  }
+
+  private static String sha1(String value) {
+    try {
+      byte[] digest =
+          MessageDigest.getInstance("SHA-1").digest(value.getBytes(StandardCharsets.UTF_8));
+      StringBuilder hex = new StringBuilder();
+      for (byte b : digest) {
+        hex.append(String.format("%02x", b));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      return value;
+    }
+  }
+}
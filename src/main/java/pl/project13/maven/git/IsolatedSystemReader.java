@@ -0,0 +1,224 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.io.IOException;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.TimeZone;
+import org.eclipse.jgit.errors.ConfigInvalidException;
+import org.eclipse.jgit.errors.CorruptObjectException;
+import org.eclipse.jgit.lib.Config;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.storage.file.FileBasedConfig;
+import org.eclipse.jgit.util.FS;
+import org.eclipse.jgit.util.SystemReader;
+
+/**
+ * A JGit {@link SystemReader} that does not discover and read the system ({@code
+ * /etc/gitconfig}) and user ({@code ~/.gitconfig}, {@code $XDG_CONFIG_HOME/git/config})
+ * configuration. Locating the system configuration may require JGit to spawn a native git
+ * executable, which is a noticeable cost for short builds. Everything else is delegated to the
+ * reader that was installed before.
+ *
+ * <p>JGit only allows to replace the reader JVM wide and the repository is opened by the plugin
+ * core, so an isolated configuration can't be passed to the repository builder. The reader
+ * therefore only isolates the thread that installed it; any other thread of the same JVM (e.g.
+ * another plugin of a parallel build) is delegated to the previous reader unchanged. The
+ * installation is reference counted to support parallel plugin executions: the first execution
+ * installs it and the last one restores the previous reader.
+ *
+ * <p>The first installation also calls {@link FS.FileStoreAttributes#setBackground
+ * setBackground(true)}, so measuring the timestamp resolution of the file system does not block
+ * opening the repository. That flag is JVM-global: it affects every parallel execution and any
+ * other JGit user of the JVM, and since JGit offers no way to read its previous value it is not
+ * restored by {@link #uninstall()}.
+ */
+final class IsolatedSystemReader extends SystemReader {
+  private static final Object LOCK = new Object();
+  private static final ThreadLocal<Integer> DEPTH = ThreadLocal.withInitial(() -> 0);
+  private static int installations = 0;
+  private static SystemReader previous = null;
+  private static IsolatedSystemReader installed = null;
+
+  private final SystemReader delegate;
+
+  private IsolatedSystemReader(SystemReader delegate) {
+    this.delegate = delegate;
+  }
+
+  /**
+   * Installs the isolated reader (if not already installed by another execution) and isolates the
+   * current thread. Each call must be followed by a call to {@link #uninstall()} on the same
+   * thread.
+   */
+  static void install() {
+    synchronized (LOCK) {
+      if (installations++ == 0) {
+        previous = SystemReader.getInstance();
+        installed = new IsolatedSystemReader(previous);
+        SystemReader.setInstance(installed);
+        // JVM-global, see the class documentation
+        FS.FileStoreAttributes.setBackground(true);
+      }
+    }
+    DEPTH.set(DEPTH.get() + 1);
+  }
+
+  /** Restores the previous reader once the last execution that installed it is done. */
+  static void uninstall() {
+    int depth = DEPTH.get() - 1;
+    if (depth <= 0) {
+      DEPTH.remove();
+    } else {
+      DEPTH.set(depth);
+    }
+    synchronized (LOCK) {
+      if (--installations == 0) {
+        // another JGit user may have replaced the reader in the meantime, keep its reader
+        if (SystemReader.getInstance() == installed) {
+          SystemReader.setInstance(previous);
+        }
+        previous = null;
+        installed = null;
+      }
+    }
+  }
+
+  private static boolean isIsolated() {
+    return DEPTH.get() > 0;
+  }
+
+  @Override
+  public FileBasedConfig openSystemConfig(Config parent, FS fs) {
+    return isIsolated() ? emptyConfig(parent, fs) : delegate.openSystemConfig(parent, fs);
+  }
+
+  @Override
+  public FileBasedConfig openUserConfig(Config parent, FS fs) {
+    return isIsolated() ? emptyConfig(parent, fs) : delegate.openUserConfig(parent, fs);
+  }
+
+  @Override
+  public FileBasedConfig openJGitConfig(Config parent, FS fs) {
+    // the JGit config caches the measured file system attributes, keep it to avoid re-measuring
+    return delegate.openJGitConfig(parent, fs);
+  }
+
+  @Override
+  public StoredConfig getSystemConfig() throws ConfigInvalidException, IOException {
+    // the cache of this reader only ever holds the isolated (empty) configuration
+    return isIsolated() ? super.getSystemConfig() : delegate.getSystemConfig();
+  }
+
+  @Override
+  public StoredConfig getUserConfig() throws ConfigInvalidException, IOException {
+    return isIsolated() ? super.getUserConfig() : delegate.getUserConfig();
+  }
+
+  @Override
+  public StoredConfig getJGitConfig() throws ConfigInvalidException, IOException {
+    return delegate.getJGitConfig();
+  }
+
+  @Override
+  public String getHostname() {
+    return delegate.getHostname();
+  }
+
+  @Override
+  public String getenv(String variable) {
+    return delegate.getenv(variable);
+  }
+
+  @Override
+  public String getProperty(String key) {
+    return delegate.getProperty(key);
+  }
+
+  @Override
+  public long getCurrentTime() {
+    return delegate.getCurrentTime();
+  }
+
+  @Override
+  public int getTimezone(long when) {
+    return delegate.getTimezone(when);
+  }
+
+  @Override
+  public TimeZone getTimeZone() {
+    return delegate.getTimeZone();
+  }
+
+  @Override
+  public Locale getLocale() {
+    return delegate.getLocale();
+  }
+
+  @Override
+  public SimpleDateFormat getSimpleDateFormat(String pattern) {
+    return delegate.getSimpleDateFormat(pattern);
+  }
+
+  @Override
+  public SimpleDateFormat getSimpleDateFormat(String pattern, Locale locale) {
+    return delegate.getSimpleDateFormat(pattern, locale);
+  }
+
+  @Override
+  public DateFormat getDateTimeInstance(int dateStyle, int timeStyle) {
+    return delegate.getDateTimeInstance(dateStyle, timeStyle);
+  }
+
+  @Override
+  public boolean isWindows() {
+    return delegate.isWindows();
+  }
+
+  @Override
+  public boolean isMacOS() {
+    return delegate.isMacOS();
+  }
+
+  @Override
+  public void checkPath(String path) throws CorruptObjectException {
+    delegate.checkPath(path);
+  }
+
+  @Override
+  public void checkPath(byte[] path) throws CorruptObjectException {
+    delegate.checkPath(path);
+  }
+
+  private static FileBasedConfig emptyConfig(Config parent, FS fs) {
+    return new FileBasedConfig(parent, null, fs) {
+      @Override
+      public void load() {
+        // nothing to load
+      }
+
+      @Override
+      public boolean isOutdated() {
+        return false;
+      }
+    };
+  }
+}
@@ -0,0 +1,557 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import javax.annotation.Nonnull;
+
+/**
+ * {@link Properties} with entries that are only computed when they are read for the first time.
+ * The entries are registered per group: reading any key of a group computes the whole group once
+ * and memoises the values, so every later reader (e.g. another plugin) sees the very same values.
+ *
+ * <p>Looking up a single key (e.g. {@link #getProperty(String)}, {@link #get(Object)} or {@link
+ * #containsKey(Object)}) only computes the group of that key. Everything that needs to see all
+ * entries (iterating, copying, storing, ...) computes all pending groups first.
+ *
+ * <p>The instance is a view of the original properties it was created for: every value that is
+ * set, removed or computed through the view is written through to the original instance as well,
+ * so a reader that still holds the original instance sees the same values (but never triggers a
+ * computation). A group is computed without holding the lock of the properties, readers of other
+ * keys are not blocked by the git work.
+ *
+ * <p>The {@link #keySet()}, {@link #entrySet()} and {@link #values()} views are read-only, since a
+ * change through them could not be written through to the original properties. Removing a key that
+ * is still pending discards it without computing its group.
+ */
+final class LazyGitProperties extends Properties {
+  private static final long serialVersionUID = 1L;
+
+  private static final String READ_ONLY_VIEW =
+      "The views of the lazily computed git properties are read-only, "
+          + "use put(Object, Object) or remove(Object) of the properties instead";
+
+  /** The original properties every change is written through to. */
+  private final transient Properties original;
+
+  /** The pending (not yet computed) keys and the group that computes them. */
+  private final transient Map<String, LazyGroup> pendingKeys = new HashMap<>();
+
+  /** A group of keys that are computed together. */
+  private static final class LazyGroup {
+    private final Collection<String> keys;
+    private final Supplier<Properties> supplier;
+    private Thread computingThread = null;
+    private boolean computed = false;
+    private Properties values = null;
+
+    private LazyGroup(Collection<String> keys, Supplier<Properties> supplier) {
+      this.keys = keys;
+      this.supplier = supplier;
+    }
+
+    /**
+     * Computes the values once, concurrent readers of the group wait for the first one.
+     *
+     * @return {@code false} if the current thread is already computing the group (e.g. a
+     *     replacement that reads the project properties).
+     */
+    private synchronized boolean compute() {
+      if (computed) {
+        return true;
+      }
+      if (computingThread == Thread.currentThread()) {
+        return false;
+      }
+      computingThread = Thread.currentThread();
+      try {
+        values = supplier.get();
+      } finally {
+        computingThread = null;
+        computed = true;
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Constructor to create a view of the given properties.
+   *
+   * @param original The original properties, every change is written through to them.
+   */
+  LazyGitProperties(@Nonnull Properties original) {
+    this.original = original;
+    synchronized (original) {
+      original.forEach(super::put);
+    }
+  }
+
+  /**
+   * Registers a group of keys that are computed on first access.
+   *
+   * @param keys The keys the supplier may produce. Keys that are already present are ignored.
+   * @param supplier Computes the values of the group (it will be called at most once).
+   */
+  synchronized void addLazyGroup(
+      @Nonnull Collection<String> keys, @Nonnull Supplier<Properties> supplier) {
+    LazyGroup group = new LazyGroup(keys, supplier);
+    for (String key : keys) {
+      if (!super.containsKey(key)) {
+        pendingKeys.put(key, group);
+      }
+    }
+  }
+
+  /**
+   * Whether any key is still waiting to be computed.
+   *
+   * @return {@code true} if at least one key has not been computed yet.
+   */
+  synchronized boolean hasPendingKeys() {
+    return !pendingKeys.isEmpty();
+  }
+
+  /**
+   * Whether the key is still waiting to be computed.
+   *
+   * @param key The key to check.
+   * @return {@code true} if the key has not been computed yet.
+   */
+  synchronized boolean isPending(Object key) {
+    return pendingKeys.containsKey(key);
+  }
+
+  private void resolve(Object key) {
+    LazyGroup group;
+    synchronized (this) {
+      group = pendingKeys.get(key);
+    }
+    if (group != null) {
+      resolve(group);
+    }
+  }
+
+  private void resolve(LazyGroup group) {
+    // the git work runs without holding the lock of the properties
+    if (!group.compute()) {
+      return;
+    }
+    synchronized (this) {
+      List<String> keysToResolve = new ArrayList<>();
+      for (String groupKey : group.keys) {
+        if (pendingKeys.get(groupKey) == group) {
+          keysToResolve.add(groupKey);
+          pendingKeys.remove(groupKey);
+        }
+      }
+      if (keysToResolve.isEmpty() || group.values == null) {
+        return;
+      }
+      for (String valueKey : group.values.stringPropertyNames()) {
+        // keep values that were explicitly set in the meantime, but accept additional keys (e.g.
+        // created by a replacement with a propertyOutputSuffix)
+        if (keysToResolve.contains(valueKey)
+            || (!group.keys.contains(valueKey) && !super.containsKey(valueKey))) {
+          store(valueKey, group.values.getProperty(valueKey));
+        }
+      }
+    }
+  }
+
+  private void resolveAll() {
+    List<LazyGroup> groups;
+    synchronized (this) {
+      groups = new ArrayList<>(new LinkedHashSet<>(pendingKeys.values()));
+    }
+    groups.forEach(this::resolve);
+  }
+
+  private synchronized Object store(Object key, Object value) {
+    original.put(key, value);
+    return super.put(key, value);
+  }
+
+  private synchronized Object discard(Object key) {
+    original.remove(key);
+    return super.remove(key);
+  }
+
+  /** Stores the value of a remapping function, {@code null} removes the key. */
+  private synchronized Object storeOrDiscard(Object key, Object oldValue, Object newValue) {
+    if (newValue != null) {
+      store(key, newValue);
+    } else if (oldValue != null) {
+      discard(key);
+    }
+    return newValue;
+  }
+
+  @Override
+  public String getProperty(String key) {
+    resolve(key);
+    return super.getProperty(key);
+  }
+
+  @Override
+  public Object get(Object key) {
+    resolve(key);
+    return super.get(key);
+  }
+
+  @Override
+  public Object getOrDefault(Object key, Object defaultValue) {
+    resolve(key);
+    return super.getOrDefault(key, defaultValue);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    resolve(key);
+    return super.containsKey(key);
+  }
+
+  @Override
+  public Object put(Object key, Object value) {
+    synchronized (this) {
+      // an explicitly set value wins over the lazily computed one
+      pendingKeys.remove(key);
+      return store(key, value);
+    }
+  }
+
+  @Override
+  public void putAll(Map<?, ?> t) {
+    synchronized (this) {
+      t.forEach(this::put);
+    }
+  }
+
+  /**
+   * Removes the key. A key that is still pending is discarded without being computed.
+   *
+   * @param key The key to remove.
+   * @return The previous value or {@code null} if the key was absent or still pending.
+   */
+  @Override
+  public synchronized Object remove(Object key) {
+    pendingKeys.remove(key);
+    return discard(key);
+  }
+
+  @Override
+  public boolean remove(Object key, Object value) {
+    resolve(key);
+    synchronized (this) {
+      if (value == null || !value.equals(super.get(key))) {
+        return false;
+      }
+      discard(key);
+      return true;
+    }
+  }
+
+  @Override
+  public Object putIfAbsent(Object key, Object value) {
+    resolve(key);
+    synchronized (this) {
+      Object oldValue = super.get(key);
+      return oldValue != null ? oldValue : store(key, value);
+    }
+  }
+
+  @Override
+  public Object replace(Object key, Object value) {
+    resolve(key);
+    synchronized (this) {
+      return super.containsKey(key) ? store(key, value) : null;
+    }
+  }
+
+  @Override
+  public boolean replace(Object key, Object oldValue, Object newValue) {
+    resolve(key);
+    synchronized (this) {
+      if (oldValue == null || !oldValue.equals(super.get(key))) {
+        return false;
+      }
+      store(key, newValue);
+      return true;
+    }
+  }
+
+  @Override
+  public void replaceAll(BiFunction<? super Object, ? super Object, ?> function) {
+    resolveAll();
+    synchronized (this) {
+      for (Map.Entry<Object, Object> entry : new ArrayList<>(super.entrySet())) {
+        store(entry.getKey(), function.apply(entry.getKey(), entry.getValue()));
+      }
+    }
+  }
+
+  @Override
+  public Object computeIfAbsent(Object key, Function<? super Object, ?> mappingFunction) {
+    resolve(key);
+    synchronized (this) {
+      Object oldValue = super.get(key);
+      return oldValue != null ? oldValue : storeOrDiscard(key, null, mappingFunction.apply(key));
+    }
+  }
+
+  @Override
+  public Object computeIfPresent(
+      Object key, BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+    resolve(key);
+    synchronized (this) {
+      Object oldValue = super.get(key);
+      if (oldValue == null) {
+        return null;
+      }
+      return storeOrDiscard(key, oldValue, remappingFunction.apply(key, oldValue));
+    }
+  }
+
+  @Override
+  public Object compute(
+      Object key, BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+    resolve(key);
+    synchronized (this) {
+      Object oldValue = super.get(key);
+      return storeOrDiscard(key, oldValue, remappingFunction.apply(key, oldValue));
+    }
+  }
+
+  @Override
+  public Object merge(
+      Object key, Object value, BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+    resolve(key);
+    synchronized (this) {
+      Object oldValue = super.get(key);
+      Object newValue = oldValue == null ? value : remappingFunction.apply(oldValue, value);
+      return storeOrDiscard(key, oldValue, newValue);
+    }
+  }
+
+  @Override
+  public synchronized void clear() {
+    pendingKeys.clear();
+    original.clear();
+    super.clear();
+  }
+
+  @Override
+  public Set<Object> keySet() {
+    resolveAll();
+    return new ReadOnlySet<>(super.keySet(), UnaryOperator.identity());
+  }
+
+  @Override
+  public Set<Map.Entry<Object, Object>> entrySet() {
+    resolveAll();
+    return new ReadOnlySet<>(super.entrySet(), ReadOnlyEntry::new);
+  }
+
+  @Override
+  public Collection<Object> values() {
+    resolveAll();
+    Collection<Object> values = super.values();
+    return new AbstractCollection<Object>() {
+      @Override
+      public Iterator<Object> iterator() {
+        return readOnly(values.iterator(), UnaryOperator.identity());
+      }
+
+      @Override
+      public int size() {
+        return values.size();
+      }
+
+      @Override
+      public boolean add(Object value) {
+        throw new UnsupportedOperationException(READ_ONLY_VIEW);
+      }
+    };
+  }
+
+  private static <T> Iterator<T> readOnly(Iterator<T> iterator, UnaryOperator<T> wrapper) {
+    return new Iterator<T>() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public T next() {
+        return wrapper.apply(iterator.next());
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException(READ_ONLY_VIEW);
+      }
+    };
+  }
+
+  /** A read-only view of a set of the properties. */
+  private static final class ReadOnlySet<T> extends AbstractSet<T> {
+    private final Set<T> delegate;
+    private final UnaryOperator<T> wrapper;
+
+    private ReadOnlySet(Set<T> delegate, UnaryOperator<T> wrapper) {
+      this.delegate = delegate;
+      this.wrapper = wrapper;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+      return readOnly(delegate.iterator(), wrapper);
+    }
+
+    @Override
+    public int size() {
+      return delegate.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return delegate.contains(o);
+    }
+
+    @Override
+    public boolean add(T t) {
+      throw new UnsupportedOperationException(READ_ONLY_VIEW);
+    }
+  }
+
+  /** An entry of the {@link #entrySet()} whose value can't be changed. */
+  private static final class ReadOnlyEntry
+      extends AbstractMap.SimpleImmutableEntry<Object, Object> {
+    private static final long serialVersionUID = 1L;
+
+    private ReadOnlyEntry(Map.Entry<Object, Object> entry) {
+      super(entry);
+    }
+
+    @Override
+    public Object setValue(Object value) {
+      throw new UnsupportedOperationException(READ_ONLY_VIEW);
+    }
+  }
+
+  @Override
+  public Enumeration<Object> keys() {
+    resolveAll();
+    return super.keys();
+  }
+
+  @Override
+  public Enumeration<Object> elements() {
+    resolveAll();
+    return super.elements();
+  }
+
+  @Override
+  public Enumeration<?> propertyNames() {
+    resolveAll();
+    return super.propertyNames();
+  }
+
+  @Override
+  public Set<String> stringPropertyNames() {
+    resolveAll();
+    return super.stringPropertyNames();
+  }
+
+  @Override
+  public int size() {
+    resolveAll();
+    return super.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    resolveAll();
+    return super.isEmpty();
+  }
+
+  @Override
+  public boolean contains(Object value) {
+    resolveAll();
+    return super.contains(value);
+  }
+
+  @Override
+  public boolean containsValue(Object value) {
+    resolveAll();
+    return super.containsValue(value);
+  }
+
+  @Override
+  public void forEach(BiConsumer<? super Object, ? super Object> action) {
+    resolveAll();
+    super.forEach(action);
+  }
+
+  @Override
+  public Object clone() {
+    resolveAll();
+    Properties copy = new Properties();
+    synchronized (this) {
+      for (Map.Entry<Object, Object> entry : super.entrySet()) {
+        copy.put(entry.getKey(), entry.getValue());
+      }
+    }
+    return copy;
+  }
+
+  @Override
+  public String toString() {
+    resolveAll();
+    return super.toString();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    resolveAll();
+    return super.equals(o);
+  }
+
+  @Override
+  public int hashCode() {
+    resolveAll();
+    return super.hashCode();
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.util.function.Supplier;
+import javax.annotation.Nonnull;
+import pl.project13.core.log.LogInterface;
+
+/**
+ * A {@link LogInterface} that tells whether a level is enabled, so expensive messages (e.g. one per
+ * property) are only built when they are actually logged. For any other {@link LogInterface} all
+ * levels are considered enabled.
+ *
+ * <p>Example:
+ *
+ * <pre>{@code
+ * if (LevelAwareLog.isInfoEnabled(log)) {
+ *   log.info("including property '" + propertyName + "' in results");
+ * }
+ * LevelAwareLog.debug(log, () -> "Adding properties to project: '" + name + "'");
+ * }</pre>
+ */
+interface LevelAwareLog extends LogInterface {
+  boolean isDebugEnabled();
+
+  boolean isInfoEnabled();
+
+  /**
+   * Whether debug messages of the log are logged at all.
+   *
+   * @param log The log.
+   * @return {@code false} if debug messages are discarded.
+   */
+  static boolean isDebugEnabled(@Nonnull LogInterface log) {
+    return !(log instanceof LevelAwareLog) || ((LevelAwareLog) log).isDebugEnabled();
+  }
+
+  /**
+   * Whether info messages of the log are logged at all.
+   *
+   * @param log The log.
+   * @return {@code false} if info messages are discarded.
+   */
+  static boolean isInfoEnabled(@Nonnull LogInterface log) {
+    return !(log instanceof LevelAwareLog) || ((LevelAwareLog) log).isInfoEnabled();
+  }
+
+  /**
+   * Logs a debug message that is only built if debug messages are logged.
+   *
+   * @param log The log.
+   * @param msg Builds the message.
+   */
+  static void debug(@Nonnull LogInterface log, @Nonnull Supplier<String> msg) {
+    if (isDebugEnabled(log)) {
+      log.debug(msg.get());
+    }
+  }
+
+  /**
+   * Logs an info message that is only built if info messages are logged.
+   *
+   * @param log The log.
+   * @param msg Builds the message.
+   */
+  static void info(@Nonnull LogInterface log, @Nonnull Supplier<String> msg) {
+    if (isInfoEnabled(log)) {
+      log.info(msg.get());
+    }
+  }
+}
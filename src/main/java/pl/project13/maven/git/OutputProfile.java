@@ -0,0 +1,180 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.util.List;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * This class represents an additional output of the generated properties with its own prefix,
+ * format and filters. All output profiles of an execution are rendered from the properties that
+ * were computed once by that execution.
+ *
+ * @since 7.0.1
+ */
+public class OutputProfile {
+  /**
+   * The prefix of the properties of this profile (e.g. {@code app.git}). The properties of the
+   * execution are renamed from the prefix of the execution to this prefix.
+   */
+  @Parameter(required = true)
+  private String prefix;
+
+  /**
+   * The format of the {@link #generateGitPropertiesFilename} ({@code properties} or {@code json}).
+   * If left empty the format of the execution is used.
+   */
+  @Parameter private String format;
+
+  /**
+   * The file the properties of this profile should be written to. If left empty no file is
+   * generated for this profile.
+   */
+  @Parameter private String generateGitPropertiesFilename;
+
+  /**
+   * The properties of this profile that should be included (see the {@code includeOnlyProperties}
+   * of the execution), matched against the renamed keys.
+   */
+  @Parameter private List<String> includeOnlyProperties;
+
+  /**
+   * The properties of this profile that should be excluded (see the {@code excludeProperties} of
+   * the execution), matched against the renamed keys.
+   */
+  @Parameter private List<String> excludeProperties;
+
+  /** Empty constructor. */
+  public OutputProfile() {}
+
+  /**
+   * Constructs an additional output of the generated properties.
+   *
+   * @param prefix The prefix of the properties of this profile (e.g. {@code app.git})
+   * @param format The format of the generated file ({@code properties} or {@code json}), may be
+   *     {@code null} to use the format of the execution.
+   * @param generateGitPropertiesFilename The file the properties should be written to, may be
+   *     {@code null} to not generate a file.
+   * @param includeOnlyProperties The properties that should be included.
+   * @param excludeProperties The properties that should be excluded.
+   */
+  public OutputProfile(
+      String prefix,
+      String format,
+      String generateGitPropertiesFilename,
+      List<String> includeOnlyProperties,
+      List<String> excludeProperties) {
+    this.prefix = prefix;
+    this.format = format;
+    this.generateGitPropertiesFilename = generateGitPropertiesFilename;
+    this.includeOnlyProperties = includeOnlyProperties;
+    this.excludeProperties = excludeProperties;
+  }
+
+  /**
+   * The prefix of the properties of this profile.
+   *
+   * @return The prefix of the properties of this profile (e.g. {@code app.git})
+   */
+  public String getPrefix() {
+    return prefix;
+  }
+
+  /**
+   * Set the prefix of the properties of this profile (e.g. {@code app.git})
+   *
+   * @param prefix The prefix
+   */
+  public void setPrefix(String prefix) {
+    this.prefix = prefix;
+  }
+
+  /**
+   * The format of the generated file.
+   *
+   * @return The format of the generated file ({@code properties} or {@code json}), {@code null} if
+   *     the format of the execution is used.
+   */
+  public String getFormat() {
+    return format;
+  }
+
+  /**
+   * Set the format of the generated file ({@code properties} or {@code json}).
+   *
+   * @param format The format
+   */
+  public void setFormat(String format) {
+    this.format = format;
+  }
+
+  /**
+   * The file the properties of this profile should be written to.
+   *
+   * @return The file the properties should be written to, {@code null} if no file is generated.
+   */
+  public String getGenerateGitPropertiesFilename() {
+    return generateGitPropertiesFilename;
+  }
+
+  /**
+   * Set the file the properties of this profile should be written to.
+   *
+   * @param generateGitPropertiesFilename The file
+   */
+  public void setGenerateGitPropertiesFilename(String generateGitPropertiesFilename) {
+    this.generateGitPropertiesFilename = generateGitPropertiesFilename;
+  }
+
+  /**
+   * The properties of this profile that should be included.
+   *
+   * @return The properties of this profile that should be included.
+   */
+  public List<String> getIncludeOnlyProperties() {
+    return includeOnlyProperties;
+  }
+
+  /**
+   * Set the properties of this profile that should be included.
+   *
+   * @param includeOnlyProperties The properties that should be included.
+   */
+  public void setIncludeOnlyProperties(List<String> includeOnlyProperties) {
+    this.includeOnlyProperties = includeOnlyProperties;
+  }
+
+  /**
+   * The properties of this profile that should be excluded.
+   *
+   * @return The properties of this profile that should be excluded.
+   */
+  public List<String> getExcludeProperties() {
+    return excludeProperties;
+  }
+
+  /**
+   * Set the properties of this profile that should be excluded.
+   *
+   * @param excludeProperties The properties that should be excluded.
+   */
+  public void setExcludeProperties(List<String> excludeProperties) {
+    this.excludeProperties = excludeProperties;
+  }
+}
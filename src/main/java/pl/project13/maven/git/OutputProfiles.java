@@ -0,0 +1,97 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.util.Locale;
+import java.util.Properties;
+import javax.annotation.Nonnull;
+import pl.project13.core.CommitIdPropertiesOutputFormat;
+import pl.project13.core.PropertiesFilterer;
+import pl.project13.core.log.LogInterface;
+
+/**
+ * Renders the {@link OutputProfile}s from the properties that were computed by an execution. No
+ * git data is computed again, the properties are only renamed and filtered.
+ */
+final class OutputProfiles {
+  private OutputProfiles() {}
+
+  static String prefixDot(String prefix) {
+    String trimmedPrefix = prefix == null ? "" : prefix.trim();
+    return trimmedPrefix.isEmpty() ? "" : trimmedPrefix + ".";
+  }
+
+  /**
+   * Renders the properties of a profile.
+   *
+   * @param properties The properties computed by the execution.
+   * @param prefixDot The prefix (with the trailing dot) of the execution.
+   * @param profile The profile to render.
+   * @param log The logger for the filters.
+   * @return The renamed and filtered properties of the profile.
+   */
+  static Properties render(
+      @Nonnull Properties properties,
+      @Nonnull String prefixDot,
+      @Nonnull OutputProfile profile,
+      @Nonnull LogInterface log) {
+    String profilePrefixDot = prefixDot(profile.getPrefix());
+    Properties profileProperties = new Properties();
+    for (String key : properties.stringPropertyNames()) {
+      String profileKey =
+          key.startsWith(prefixDot) ? profilePrefixDot + key.substring(prefixDot.length()) : key;
+      profileProperties.setProperty(profileKey, properties.getProperty(key));
+    }
+    PropertiesFilterer propertiesFilterer = new PropertiesFilterer(log);
+    propertiesFilterer.filter(
+        profileProperties, profile.getIncludeOnlyProperties(), profilePrefixDot);
+    propertiesFilterer.filterNot(
+        profileProperties, profile.getExcludeProperties(), profilePrefixDot);
+    return profileProperties;
+  }
+
+  /**
+   * The format of the file of a profile.
+   *
+   * @param profile The profile.
+   * @param defaultFormat The format of the execution.
+   * @param log The logger to report an invalid format.
+   * @return The format of the file of the profile.
+   */
+  static CommitIdPropertiesOutputFormat format(
+      @Nonnull OutputProfile profile,
+      @Nonnull CommitIdPropertiesOutputFormat defaultFormat,
+      @Nonnull LogInterface log) {
+    String format = profile.getFormat();
+    if (format == null || format.trim().isEmpty()) {
+      return defaultFormat;
+    }
+    try {
+      return CommitIdPropertiesOutputFormat.valueOf(format.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      log.warn(
+          "Detected wrong setting for the 'format' of the output profile '"
+              + profile.getPrefix()
+              + "'. Falling back to '"
+              + defaultFormat.name().toLowerCase(Locale.ROOT)
+              + "'!");
+      return defaultFormat;
+    }
+  }
+}
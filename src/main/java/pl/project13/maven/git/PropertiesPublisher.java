@@ -0,0 +1,60 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.util.Properties;
+import javax.annotation.Nonnull;
+
+/**
+ * Publishes properties into shared targets (e.g. the system properties or the properties of the
+ * Maven session) that are read and written by every thread of a parallel build.
+ *
+ * <p>Only the properties whose values differ are written. Publishing the same properties again
+ * (e.g. from every module of the build) does not write at all. The changed properties are written
+ * one after the other, a concurrent reader may see some of them before the others.
+ */
+final class PropertiesPublisher {
+  private PropertiesPublisher() {}
+
+  /**
+   * Publishes the properties into the target.
+   *
+   * @param propertiesToPublish The properties to publish.
+   * @param propertiesTarget The target to publish into.
+   * @return The number of properties that changed in the target.
+   */
+  static int publish(
+      @Nonnull CompactProperties propertiesToPublish, @Nonnull Properties propertiesTarget) {
+    LazyGitProperties lazyTarget =
+        propertiesTarget instanceof LazyGitProperties ? (LazyGitProperties) propertiesTarget : null;
+    Properties changed = new Properties();
+    propertiesToPublish.forEach(
+        (propertyName, value) -> {
+          // comparing with a pending lazy property would compute it just to override it
+          if ((lazyTarget != null && lazyTarget.isPending(propertyName))
+              || !value.equals(propertiesTarget.get(propertyName))) {
+            changed.setProperty(propertyName, value);
+          }
+        });
+    if (!changed.isEmpty()) {
+      propertiesTarget.putAll(changed);
+    }
+    return changed.size();
+  }
+}
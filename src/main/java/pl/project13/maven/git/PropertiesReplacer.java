@@ -18,10 +18,17 @@
 
 package pl.project13.maven.git;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.Set;
 import java.util.regex.Pattern;
+import javax.annotation.Nullable;
 import org.apache.maven.plugin.PluginParameterExpressionEvaluator;
 import pl.project13.core.log.LogInterface;
 
@@ -32,6 +39,11 @@ import pl.project13.core.log.LogInterface;
 public class PropertiesReplacer {
   private final LogInterface log;
   private final PluginParameterExpressionEvaluator expressionEvaluator;
+  private final ReplacementPatterns replacementPatterns;
+  private final boolean evaluateGeneratedValues;
+  private final Map<String, String> evaluatedExpressions = new HashMap<>();
+  private final Map<ReplacementProperty, TransformationPipeline[]> transformationPipelines =
+      new IdentityHashMap<>();
 
   /**
    * Constructor to encapsulates all references required to perform property replacements.
@@ -42,8 +54,27 @@ public class PropertiesReplacer {
    */
   public PropertiesReplacer(
       LogInterface log, PluginParameterExpressionEvaluator expressionEvaluator) {
+    this(log, expressionEvaluator, new ReplacementPatterns(), true);
+  }
+
+  /**
+   * Constructor to encapsulates all references required to perform property replacements.
+   *
+   * @param log The logger to log any messages
+   * @param expressionEvaluator Maven's PluginParameterExpressionEvaluator
+   * @param replacementPatterns The (shared) store of the compiled regex tokens
+   * @param evaluateGeneratedValues {@code false} to never evaluate expressions in the generated
+   *     values (the values of the replacement properties are still evaluated)
+   */
+  PropertiesReplacer(
+      LogInterface log,
+      PluginParameterExpressionEvaluator expressionEvaluator,
+      ReplacementPatterns replacementPatterns,
+      boolean evaluateGeneratedValues) {
     this.log = log;
     this.expressionEvaluator = expressionEvaluator;
+    this.replacementPatterns = replacementPatterns;
+    this.evaluateGeneratedValues = evaluateGeneratedValues;
   }
 
   /**
@@ -55,46 +86,99 @@ public class PropertiesReplacer {
   public void performReplacement(
       Properties properties, List<ReplacementProperty> replacementProperties) {
     if ((replacementProperties != null) && (properties != null)) {
-      for (ReplacementProperty replacementProperty : replacementProperties) {
+      int index = 0;
+      while (index < replacementProperties.size()) {
+        ReplacementProperty replacementProperty = replacementProperties.get(index);
         String propertyKey = replacementProperty.getProperty();
+        if (isInPlaceOnAllGeneratedProperties(replacementProperty)) {
+          // consecutive in-place replacements on all properties never add or remove a property,
+          // so they can be applied to one property after the other in a single pass
+          int end = index + 1;
+          while (end < replacementProperties.size()
+              && isInPlaceOnAllGeneratedProperties(replacementProperties.get(end))) {
+            end++;
+          }
+          performInPlaceReplacementsOnAllGeneratedProperties(
+              properties, replacementProperties.subList(index, end));
+          index = end;
+          continue;
+        }
         if (propertyKey == null) {
           performReplacementOnAllGeneratedProperties(properties, replacementProperty);
         } else {
           performReplacementOnSingleProperty(properties, replacementProperty, propertyKey);
         }
+        index++;
       }
     }
   }
 
+  private static boolean isInPlaceOnAllGeneratedProperties(
+      ReplacementProperty replacementProperty) {
+    return replacementProperty.getProperty() == null
+        && (replacementProperty.getPropertyOutputSuffix() == null
+            || replacementProperty.getPropertyOutputSuffix().isEmpty());
+  }
+
+  private void performInPlaceReplacementsOnAllGeneratedProperties(
+      Properties properties, List<ReplacementProperty> replacementProperties) {
+    Set<String> propertyNames = properties.stringPropertyNames();
+    List<Set<String>> selectedPropertyNames = new ArrayList<>(replacementProperties.size());
+    for (ReplacementProperty replacementProperty : replacementProperties) {
+      selectedPropertyNames.add(selectPropertyNames(propertyNames, replacementProperty));
+    }
+    for (String propertyName : propertyNames) {
+      String content = properties.getProperty(propertyName);
+      String result = content;
+      for (int i = 0; i < replacementProperties.size(); i++) {
+        if (!selectedPropertyNames.get(i).contains(propertyName)) {
+          continue;
+        }
+        ReplacementProperty replacementProperty = replacementProperties.get(i);
+        String original = result;
+        result = performReplacement(replacementProperty, original);
+        logReplacement(log, propertyName, null, original, result);
+      }
+      if (!result.equals(content)) {
+        properties.setProperty(propertyName, result);
+      }
+    }
+  }
+
+  /**
+   * Resolves the {@link ReplacementProperty#getPropertyPattern() propertyPattern} of the
+   * replacement against the property names once.
+   */
+  private Set<String> selectPropertyNames(
+      Set<String> propertyNames, ReplacementProperty replacementProperty) {
+    String propertyPattern = replacementProperty.getPropertyPattern();
+    if (propertyPattern == null) {
+      return propertyNames;
+    }
+    Pattern keySelector = replacementPatterns.compileKeySelector(propertyPattern);
+    Set<String> selectedPropertyNames = new HashSet<>();
+    for (String propertyName : propertyNames) {
+      if (keySelector.matcher(propertyName).matches()) {
+        selectedPropertyNames.add(propertyName);
+      }
+    }
+    return selectedPropertyNames;
+  }
+
   private void performReplacementOnAllGeneratedProperties(
       Properties properties, ReplacementProperty replacementProperty) {
-    for (String propertyName : properties.stringPropertyNames()) {
+    for (String propertyName :
+        selectPropertyNames(properties.stringPropertyNames(), replacementProperty)) {
       String content = properties.getProperty(propertyName);
       String result = performReplacement(replacementProperty, content);
       if ((replacementProperty.getPropertyOutputSuffix() != null)
           && (!replacementProperty.getPropertyOutputSuffix().isEmpty())) {
         String newPropertyKey = propertyName + "." + replacementProperty.getPropertyOutputSuffix();
         properties.setProperty(newPropertyKey, result);
-        log.info(
-            "apply replace on property "
-                + propertyName
-                + " and save to "
-                + newPropertyKey
-                + ": original value '"
-                + content
-                + "' with '"
-                + result
-                + "'");
+        logReplacement(log, propertyName, newPropertyKey, content, result);
       } else {
         properties.setProperty(propertyName, result);
-        log.info(
-            "apply replace on property "
-                + propertyName
-                + ": original value '"
-                + content
-                + "' with '"
-                + result
-                + "'");
+        logReplacement(log, propertyName, null, content, result);
       }
     }
   }
@@ -107,44 +191,49 @@ public class PropertiesReplacer {
         && (!replacementProperty.getPropertyOutputSuffix().isEmpty())) {
       String newPropertyKey = propertyKey + "." + replacementProperty.getPropertyOutputSuffix();
       properties.setProperty(newPropertyKey, result);
-      log.info(
-          "apply replace on property "
-              + propertyKey
-              + " and save to "
-              + newPropertyKey
-              + ": original value '"
-              + content
-              + "' with '"
-              + result
-              + "'");
+      logReplacement(log, propertyKey, newPropertyKey, content, result);
     } else {
       properties.setProperty(propertyKey, result);
-      log.info(
-          "apply replace on property "
-              + propertyKey
-              + ": original value '"
-              + content
-              + "' with '"
-              + result
-              + "'");
+      logReplacement(log, propertyKey, null, content, result);
     }
   }
 
+  /**
+   * Logs a single replacement. Runs for every property and replacement, so the message is only
+   * built if it is actually logged.
+   */
+  static void logReplacement(
+      LogInterface log,
+      String propertyName,
+      @Nullable String newPropertyKey,
+      String original,
+      String result) {
+    if (!LevelAwareLog.isInfoEnabled(log)) {
+      return;
+    }
+    log.info(
+        "apply replace on property "
+            + propertyName
+            + (newPropertyKey == null ? "" : " and save to " + newPropertyKey)
+            + ": original value '"
+            + original
+            + "' with '"
+            + result
+            + "'");
+  }
+
   private String performReplacement(ReplacementProperty replacementProperty, String content) {
     String evaluationContent = content;
+    boolean generatedValue = true;
     if (evaluationContent == null
         || evaluationContent.isEmpty()
         || replacementProperty.isForceValueEvaluation()) {
       evaluationContent = replacementProperty.getValue();
+      generatedValue = false;
     }
-    String result = "";
-    try {
-      result =
-          Optional.ofNullable(expressionEvaluator.evaluate(evaluationContent))
-              .map(x -> x.toString())
-              .orElse(evaluationContent);
-    } catch (Exception e) {
-      log.error("Something went wrong performing the replacement.", e);
+    String result = evaluationContent;
+    if (evaluateGeneratedValues || !generatedValue) {
+      result = evaluate(evaluationContent);
     }
     if (replacementProperty != null) {
       result =
@@ -164,20 +253,42 @@ public class PropertiesReplacer {
     return result;
   }
 
+  private String evaluate(String content) {
+    // the evaluator returns everything without an expression marker as is
+    if (content == null || content.indexOf('$') < 0) {
+      return content;
+    }
+    String result = evaluatedExpressions.get(content);
+    if (result == null) {
+      result = "";
+      try {
+        result =
+            Optional.ofNullable(expressionEvaluator.evaluate(content))
+                .map(x -> x.toString())
+                .orElse(content);
+      } catch (Exception e) {
+        log.error("Something went wrong performing the replacement.", e);
+      }
+      evaluatedExpressions.put(content, result);
+    }
+    return result;
+  }
+
   private String performTransformationRules(
       ReplacementProperty replacementProperty,
       String content,
       TransformationRule.ApplyEnum forRule) {
-    String result = content;
-    if ((replacementProperty.getTransformationRules() != null)
-        && (!replacementProperty.getTransformationRules().isEmpty())) {
-      for (TransformationRule transformationRule : replacementProperty.getTransformationRules()) {
-        if (transformationRule.getApplyRule().equals(forRule)) {
-          result = transformationRule.getActionRule().perform(result);
-        }
-      }
-    }
-    return result;
+    TransformationPipeline[] pipelines =
+        transformationPipelines.computeIfAbsent(
+            replacementProperty,
+            r ->
+                new TransformationPipeline[] {
+                  TransformationPipeline.compile(
+                      r.getTransformationRules(), TransformationRule.ApplyEnum.BEFORE),
+                  TransformationPipeline.compile(
+                      r.getTransformationRules(), TransformationRule.ApplyEnum.AFTER)
+                });
+    return pipelines[forRule.ordinal()].perform(content);
   }
 
   private String replaceRegex(String content, String token, String value) {
@@ -185,8 +296,7 @@ public class PropertiesReplacer {
       log.error("found replacementProperty without required token.");
       return content;
     }
-    final Pattern compiledPattern = Pattern.compile(token);
-    return compiledPattern.matcher(content).replaceAll(value == null ? "" : value);
+    return replacementPatterns.replaceAll(content, token, value == null ? "" : value);
   }
 
   private String replaceNonRegex(String content, String token, String value) {
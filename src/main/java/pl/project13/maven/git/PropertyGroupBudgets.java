@@ -0,0 +1,213 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import pl.project13.core.GitCommitIdExecutionException;
+import pl.project13.core.GitCommitIdPlugin;
+import pl.project13.core.PropertiesFilterer;
+import pl.project13.core.log.LogInterface;
+
+/**
+ * Enforces a time budget per {@link GitPropertyGroup}. Every budgeted group is computed by its own
+ * run of the plugin core (restricted to the keys of that group) that starts in parallel to the main
+ * run. The main run excludes the budgeted groups and merges their results right before the
+ * properties are published for the first time. A group that misses its budget (or fails) is
+ * replaced by a cheap fallback:
+ *
+ * <ul>
+ *   <li>{@link GitPropertyGroup#DESCRIBE}: the abbreviated commit id.
+ *   <li>{@link GitPropertyGroup#DIRTY}: {@code unknown}.
+ *   <li>all other groups are omitted.
+ * </ul>
+ */
+final class PropertyGroupBudgets {
+  static final String UNKNOWN = "unknown";
+
+  private final Map<GitPropertyGroup, Long> budgetsInMs;
+
+  PropertyGroupBudgets(@Nonnull Map<GitPropertyGroup, Long> budgetsInMs) {
+    this.budgetsInMs = budgetsInMs;
+  }
+
+  /**
+   * Parses the budgets from the plugin configuration.
+   *
+   * @param config The configured budgets (group name to milliseconds), may be {@code null}.
+   * @param log The logger to report invalid entries.
+   * @return The budgets or {@code null} if no (valid) budget is configured.
+   */
+  @Nullable
+  static PropertyGroupBudgets parse(@Nullable Map<String, String> config, LogInterface log) {
+    if (config == null || config.isEmpty()) {
+      return null;
+    }
+    Map<GitPropertyGroup, Long> budgetsInMs = new EnumMap<>(GitPropertyGroup.class);
+    for (Map.Entry<String, String> entry : config.entrySet()) {
+      GitPropertyGroup group = GitPropertyGroup.fromConfigName(entry.getKey());
+      if (group == null || group == GitPropertyGroup.BUILD) {
+        log.warn("Ignoring budget for unsupported property group '" + entry.getKey() + "'");
+        continue;
+      }
+      try {
+        long budgetInMs = Long.parseLong(entry.getValue().trim());
+        if (budgetInMs > 0) {
+          budgetsInMs.put(group, budgetInMs);
+        }
+      } catch (NumberFormatException | NullPointerException e) {
+        log.warn(
+            "Ignoring invalid budget '"
+                + entry.getValue()
+                + "' for property group '"
+                + entry.getKey()
+                + "'");
+      }
+    }
+    return budgetsInMs.isEmpty() ? null : new PropertyGroupBudgets(budgetsInMs);
+  }
+
+  /**
+   * Runs the plugin core with the budgeted groups computed on their own.
+   *
+   * @param cb The callback of the main run.
+   * @param contextProperties The properties that were already computed (may be {@code null}).
+   * @param degradedGroups Receives every group that was replaced by its fallback.
+   * @throws GitCommitIdExecutionException if the main run fails.
+   */
+  void runPlugin(
+      @Nonnull GitCommitIdPlugin.Callback cb,
+      @Nullable Properties contextProperties,
+      @Nonnull Set<GitPropertyGroup> degradedGroups)
+      throws GitCommitIdExecutionException {
+    String prefixDot = cb.getPrefixDot();
+    Set<GitPropertyGroup> selectedGroups =
+        GitPropertyGroup.selectedGroups(
+            prefixDot, cb.getIncludeOnlyProperties(), cb.getExcludeProperties());
+    long startTime = System.nanoTime();
+    List<PropertyGroupRun> groupRuns = new ArrayList<>();
+    for (GitPropertyGroup group : budgetsInMs.keySet()) {
+      if (selectedGroups.contains(group)) {
+        PropertyGroupRun groupRun = new PropertyGroupRun(cb, group, contextProperties);
+        groupRun.start();
+        groupRuns.add(groupRun);
+      }
+    }
+    if (groupRuns.isEmpty()) {
+      GitCommitIdPlugin.runPlugin(cb, contextProperties);
+      return;
+    }
+
+    List<String> excludeProperties = new ArrayList<>();
+    if (cb.getExcludeProperties() != null) {
+      excludeProperties.addAll(cb.getExcludeProperties());
+    }
+    for (PropertyGroupRun groupRun : groupRuns) {
+      excludeProperties.addAll(groupRun.getGroup().exactKeyPatterns(prefixDot));
+    }
+    GitCommitIdPlugin.Callback main =
+        new DelegatingCallback(cb) {
+          private boolean merged = false;
+
+          @Override
+          public List<String> getExcludeProperties() {
+            return excludeProperties;
+          }
+
+          @Override
+          public void performPublishToAllSystemEnvironments(Properties properties) {
+            if (!merged) {
+              merged = true;
+              merge(cb, properties, groupRuns, startTime, degradedGroups);
+            }
+            super.performPublishToAllSystemEnvironments(properties);
+          }
+        };
+    try {
+      GitCommitIdPlugin.runPlugin(main, contextProperties);
+    } finally {
+      groupRuns.forEach(PropertyGroupRun::cancel);
+    }
+  }
+
+  private void merge(
+      GitCommitIdPlugin.Callback cb,
+      Properties properties,
+      List<PropertyGroupRun> groupRuns,
+      long startTime,
+      Set<GitPropertyGroup> degradedGroups) {
+    LogInterface log = cb.getLogInterface();
+    String prefixDot = cb.getPrefixDot();
+    PropertiesFilterer propertiesFilterer = new PropertiesFilterer(log);
+    for (PropertyGroupRun groupRun : groupRuns) {
+      GitPropertyGroup group = groupRun.getGroup();
+      long budgetInMs = budgetsInMs.get(group);
+      long elapsedInMs = (System.nanoTime() - startTime) / 1_000_000;
+      Properties groupProperties = null;
+      try {
+        if (groupRun.await(budgetInMs - elapsedInMs)) {
+          groupProperties = groupRun.getGroupProperties();
+        } else {
+          log.warn(
+              "Property group "
+                  + group
+                  + " exceeded its budget of "
+                  + budgetInMs
+                  + "ms, using the fallback");
+        }
+      } catch (GitCommitIdExecutionException | RuntimeException e) {
+        log.warn(
+            "Property group " + group + " failed (" + e.getMessage() + "), using the fallback");
+      }
+      if (groupProperties == null) {
+        degradedGroups.add(group);
+        groupProperties = new Properties();
+        fallback(group, prefixDot, properties, groupProperties);
+      }
+      propertiesFilterer.filter(groupProperties, cb.getIncludeOnlyProperties(), prefixDot);
+      propertiesFilterer.filterNot(groupProperties, cb.getExcludeProperties(), prefixDot);
+      properties.putAll(groupProperties);
+    }
+  }
+
+  private static void fallback(
+      GitPropertyGroup group, String prefixDot, Properties properties, Properties fallback) {
+    switch (group) {
+      case DESCRIBE:
+        String abbrev = properties.getProperty(prefixDot + "commit.id.abbrev");
+        if (abbrev != null) {
+          for (String key : group.getKeys()) {
+            fallback.setProperty(prefixDot + key, abbrev);
+          }
+        }
+        break;
+      case DIRTY:
+        fallback.setProperty(prefixDot + "dirty", UNKNOWN);
+        break;
+      default:
+        // omitted
+    }
+  }
+}
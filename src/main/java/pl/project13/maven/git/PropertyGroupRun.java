@@ -0,0 +1,146 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.util.List;
+import java.util.Properties;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import pl.project13.core.GitCommitIdExecutionException;
+import pl.project13.core.GitCommitIdPlugin;
+import pl.project13.core.log.LogInterface;
+
+/**
+ * A run of the plugin core that only computes the properties of a single {@link
+ * GitPropertyGroup}. The run does not publish anything, does not perform any replacement and does
+ * not generate the properties file, it only captures the computed values.
+ */
+final class PropertyGroupRun {
+  private final GitPropertyGroup group;
+  private final String prefixDot;
+  private final GitCommitIdPlugin.Callback groupCallback;
+  private final Properties contextProperties;
+  private final CancellableGitRun run = new CancellableGitRun();
+  private volatile Properties result = null;
+
+  /**
+   * Constructor to encapsulates all references required to compute the group.
+   *
+   * @param cb The callback of the main run.
+   * @param group The group that should be computed.
+   * @param contextProperties The properties that were already computed (may be {@code null}).
+   */
+  PropertyGroupRun(
+      @Nonnull GitCommitIdPlugin.Callback cb,
+      @Nonnull GitPropertyGroup group,
+      @Nullable Properties contextProperties) {
+    this.group = group;
+    this.prefixDot = cb.getPrefixDot();
+    this.contextProperties =
+        contextProperties == null ? null : (Properties) contextProperties.clone();
+    List<String> includeOnlyProperties = group.exactKeyPatterns(prefixDot);
+    this.groupCallback =
+        new DelegatingCallback(cb) {
+          @Nonnull
+          @Override
+          public LogInterface getLogInterface() {
+            return run.cancellationPoints(super.getLogInterface());
+          }
+
+          @Override
+          public List<String> getIncludeOnlyProperties() {
+            return includeOnlyProperties;
+          }
+
+          @Override
+          public boolean shouldGenerateGitPropertiesFile() {
+            return false;
+          }
+
+          @Override
+          public void performPublishToAllSystemEnvironments(Properties properties) {
+            run.checkCancelled();
+            if (result == null) {
+              result = (Properties) properties.clone();
+            }
+          }
+
+          @Override
+          public void performPropertiesReplacement(Properties properties) {
+            // the replacement is performed by the main run
+          }
+        };
+  }
+
+  GitPropertyGroup getGroup() {
+    return group;
+  }
+
+  /** Starts the computation on a separate thread, see {@link CancellableGitRun#start}. */
+  void start() {
+    run.start(() -> GitCommitIdPlugin.runPlugin(groupCallback, contextProperties));
+  }
+
+  /**
+   * Waits for the computation that was {@link #start() started}.
+   *
+   * @param timeoutInMs The remaining budget in milliseconds.
+   * @return {@code true} if the computation finished, {@code false} if it was cancelled.
+   * @throws GitCommitIdExecutionException if the computation failed.
+   */
+  boolean await(long timeoutInMs) throws GitCommitIdExecutionException {
+    return run.await(timeoutInMs);
+  }
+
+  /** Cancels the computation that was {@link #start() started} (if it is still running). */
+  void cancel() {
+    run.cancel();
+  }
+
+  /**
+   * The callback that restricts a run of the plugin core to the group and captures its values,
+   * allows to compute the group on the calling thread (e.g. with a git provider of choice).
+   *
+   * @return The callback of the group.
+   */
+  GitCommitIdPlugin.Callback getGroupCallback() {
+    return groupCallback;
+  }
+
+  /**
+   * The computed properties of the group (only the keys of the group, with prefix).
+   *
+   * @return The computed properties or {@code null} if the computation did not finish.
+   */
+  @Nullable
+  Properties getGroupProperties() {
+    Properties captured = result;
+    if (captured == null) {
+      return null;
+    }
+    Properties groupProperties = new Properties();
+    for (String key : group.getKeys()) {
+      String value = captured.getProperty(prefixDot + key);
+      if (value != null) {
+        groupProperties.setProperty(prefixDot + key, value);
+      }
+    }
+    return groupProperties;
+  }
+}
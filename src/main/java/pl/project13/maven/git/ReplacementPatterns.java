@@ -0,0 +1,150 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import pl.project13.core.GitCommitIdExecutionException;
+
+/**
+ * Compiles the regex tokens of the {@link ReplacementProperty replacementProperties} once and
+ * shares them between all executions of a scope (e.g. the Maven session), so the same token is not
+ * compiled again for every property of every module.
+ */
+final class ReplacementPatterns {
+  private static final Map<Object, ReplacementPatterns> STORES = new WeakHashMap<>();
+
+  private final Map<String, Pattern> patterns = new ConcurrentHashMap<>();
+  private final Map<String, Pattern> keySelectors = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the store of the scope.
+   *
+   * @param scope The scope of the store (e.g. the Maven execution request).
+   * @return The store of the scope.
+   */
+  static ReplacementPatterns forScope(@Nonnull Object scope) {
+    synchronized (STORES) {
+      return STORES.computeIfAbsent(scope, s -> new ReplacementPatterns());
+    }
+  }
+
+  /**
+   * Compiles the regex tokens and the property patterns of all replacement properties, so an
+   * invalid configuration is reported before any git work starts.
+   *
+   * @param replacementProperties The configured replacement properties (may be {@code null}).
+   * @throws GitCommitIdExecutionException if a regex token or a property pattern is invalid.
+   */
+  void precompile(@Nullable List<ReplacementProperty> replacementProperties)
+      throws GitCommitIdExecutionException {
+    if (replacementProperties == null) {
+      return;
+    }
+    for (ReplacementProperty replacementProperty : replacementProperties) {
+      String propertyPattern = replacementProperty.getPropertyPattern();
+      if (propertyPattern != null) {
+        try {
+          compileKeySelector(propertyPattern);
+        } catch (PatternSyntaxException e) {
+          throw new GitCommitIdExecutionException(
+              "Invalid propertyPattern '"
+                  + propertyPattern
+                  + "' in replacementProperties: "
+                  + e.getMessage(),
+              e);
+        }
+      }
+      String token = replacementProperty.getToken();
+      if (replacementProperty.isRegex() && token != null) {
+        try {
+          compile(token);
+        } catch (PatternSyntaxException e) {
+          throw new GitCommitIdExecutionException(
+              "Invalid regex token '" + token + "' in replacementProperties: " + e.getMessage(), e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the compiled pattern of the token.
+   *
+   * @param token The regex token.
+   * @return The compiled pattern.
+   * @throws PatternSyntaxException if the token is not a valid regex.
+   */
+  Pattern compile(@Nonnull String token) {
+    return patterns.computeIfAbsent(token, Pattern::compile);
+  }
+
+  /**
+   * Returns the compiled pattern of a key selector (see {@link
+   * ReplacementProperty#getPropertyPattern()}).
+   *
+   * @param propertyPattern The key selector, a glob ({@code glob:} or no prefix) or a regular
+   *     expression ({@code regex:}).
+   * @return The compiled pattern that matches whole keys.
+   * @throws PatternSyntaxException if the regular expression is invalid.
+   */
+  Pattern compileKeySelector(@Nonnull String propertyPattern) {
+    return keySelectors.computeIfAbsent(
+        propertyPattern,
+        p -> {
+          if (p.startsWith("regex:")) {
+            return Pattern.compile(p.substring("regex:".length()));
+          }
+          String glob = p.startsWith("glob:") ? p.substring("glob:".length()) : p;
+          StringBuilder regex = new StringBuilder();
+          int start = 0;
+          for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*' || c == '?') {
+              if (i > start) {
+                regex.append(Pattern.quote(glob.substring(start, i)));
+              }
+              regex.append(c == '*' ? ".*" : ".");
+              start = i + 1;
+            }
+          }
+          if (start < glob.length()) {
+            regex.append(Pattern.quote(glob.substring(start)));
+          }
+          return Pattern.compile(regex.toString());
+        });
+  }
+
+  /**
+   * Replaces every match of the token in the content.
+   *
+   * @param content The content.
+   * @param token The regex token.
+   * @param replacement The replacement (may contain group references).
+   * @return The content with all matches replaced.
+   */
+  String replaceAll(@Nonnull String content, @Nonnull String token, @Nonnull String replacement) {
+    return compile(token).matcher(content).replaceAll(replacement);
+  }
+}
@@ -35,6 +35,17 @@ public class ReplacementProperty {
    */
   @Parameter private String property;
 
+  /**
+   * Defines if a replacement should only be applied to the properties whose keys match a pattern.
+   * The pattern is either a glob ({@code glob:git.commit.user.*} or just {@code *.name}, where
+   * {@code *} matches any sequence of characters and {@code ?} a single character) or a regular
+   * expression ({@code regex:git\.commit\.user\..*}) that has to match the whole key. Ignored if
+   * {@link #property} is set.
+   *
+   * @since 7.0.1
+   */
+  @Parameter private String propertyPattern;
+
   /**
    * Defines an additional output property suffix.
    *
@@ -141,6 +152,25 @@ public class ReplacementProperty {
     this.property = property;
   }
 
+  /**
+   * The pattern that selects the properties on which the replacements should be performed.
+   *
+   * @return The pattern that selects the properties (e.g. {@code glob:git.commit.user.*})
+   */
+  public String getPropertyPattern() {
+    return propertyPattern;
+  }
+
+  /**
+   * Set the pattern that selects the properties on which the replacements should be performed
+   * (e.g. {@code glob:git.commit.user.*})
+   *
+   * @param propertyPattern The pattern that selects the properties
+   */
+  public void setPropertyPattern(String propertyPattern) {
+    this.propertyPattern = propertyPattern;
+  }
+
   /**
    * The property output suffix where the replacement result should be stored in.
    *
@@ -0,0 +1,131 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Coordinates concurrent executions (e.g. {@code mvn -T 2C}) that would compute the very same
+ * properties: the first execution (the leader) computes them, all executions that start while the
+ * leader is still running wait for its result instead of starting the same git work again.
+ *
+ * <p>This is not a cache, once the leader is done the next execution computes the properties again.
+ * The in-flight computations are scoped (e.g. to the Maven session) so separate builds in the same
+ * JVM never share results.
+ */
+final class SingleFlight {
+  private static final Map<Object, Map<String, Flight>> IN_FLIGHT = new WeakHashMap<>();
+
+  private final Object scope;
+  private final String key;
+  private final CompletableFuture<CompactProperties> future;
+  private final boolean leader;
+
+  private SingleFlight(
+      Object scope, String key, CompletableFuture<CompactProperties> future, boolean leader) {
+    this.scope = scope;
+    this.key = key;
+    this.future = future;
+    this.leader = leader;
+  }
+
+  /** The shared state of a computation that is in flight. */
+  private static final class Flight {
+    private final CompletableFuture<CompactProperties> future = new CompletableFuture<>();
+  }
+
+  /**
+   * Joins the computation for the key or starts a new one.
+   *
+   * @param scope The scope of the computation (e.g. the Maven execution request).
+   * @param key Identifies the computation (e.g. the repository and the configuration).
+   * @return The joined computation, see {@link #isLeader()}.
+   */
+  static SingleFlight join(@Nonnull Object scope, @Nonnull String key) {
+    synchronized (IN_FLIGHT) {
+      Map<String, Flight> flights = IN_FLIGHT.computeIfAbsent(scope, s -> new HashMap<>());
+      Flight flight = flights.get(key);
+      if (flight != null) {
+        return new SingleFlight(scope, key, flight.future, false);
+      }
+      flight = new Flight();
+      flights.put(key, flight);
+      return new SingleFlight(scope, key, flight.future, true);
+    }
+  }
+
+  /**
+   * Whether this execution has to compute the properties.
+   *
+   * @return {@code true} if this execution has to compute the properties and {@link #complete} the
+   *     computation, {@code false} if it should {@link #await(long)} the result of the leader.
+   */
+  boolean isLeader() {
+    return leader;
+  }
+
+  /**
+   * Waits for the leader, but at most {@code timeoutInMs}. An execution that gives up waiting
+   * computes the properties itself, a leader that is stuck (e.g. in a pathological history walk)
+   * can't stall the other executions for longer than that.
+   *
+   * @param timeoutInMs The maximum time to wait in milliseconds.
+   * @return A copy of the properties computed by the leader or {@code null} if the leader failed
+   *     or did not finish in time.
+   */
+  @Nullable
+  Properties await(long timeoutInMs) {
+    try {
+      CompactProperties properties = future.get(Math.max(timeoutInMs, 0), TimeUnit.MILLISECONDS);
+      return properties == null ? null : properties.toProperties();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (ExecutionException | TimeoutException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Publishes the result of the leader to all waiting executions and ends the computation.
+   *
+   * @param properties The computed properties or {@code null} if the computation failed.
+   */
+  void complete(@Nullable Properties properties) {
+    synchronized (IN_FLIGHT) {
+      Map<String, Flight> flights = IN_FLIGHT.get(scope);
+      if (flights != null) {
+        flights.remove(key);
+        if (flights.isEmpty()) {
+          IN_FLIGHT.remove(scope);
+        }
+      }
+    }
+    future.complete(properties == null ? null : CompactProperties.of(properties));
+  }
+}
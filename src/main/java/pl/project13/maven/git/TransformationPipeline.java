@@ -0,0 +1,171 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.UnaryOperator;
+import javax.annotation.Nullable;
+import pl.project13.core.GitCommitIdExecutionException;
+
+/**
+ * The {@link TransformationRule transformationRules} of a {@link ReplacementProperty} that apply
+ * at the same time ({@code BEFORE} or {@code AFTER}), compiled once. Consecutive per-character
+ * actions (e.g. {@code LOWER_CASE} followed by {@code SANITIZE}) are fused into a single lookup
+ * table for ASCII characters, so they transform a value in a single pass. Values with other
+ * characters go through the actions one after the other.
+ */
+final class TransformationPipeline {
+  private static final TransformationPipeline EMPTY =
+      new TransformationPipeline(Collections.emptyList());
+
+  private final List<UnaryOperator<String>> stages;
+
+  private TransformationPipeline(List<UnaryOperator<String>> stages) {
+    this.stages = stages;
+  }
+
+  /**
+   * Compiles the transformation rules of all replacement properties, so an invalid configuration is
+   * reported before any git work starts.
+   *
+   * @param replacementProperties The configured replacement properties (may be {@code null}).
+   * @throws GitCommitIdExecutionException if a transformation rule is invalid.
+   */
+  static void validate(@Nullable List<ReplacementProperty> replacementProperties)
+      throws GitCommitIdExecutionException {
+    if (replacementProperties == null) {
+      return;
+    }
+    for (ReplacementProperty replacementProperty : replacementProperties) {
+      try {
+        for (TransformationRule.ApplyEnum applyRule : TransformationRule.ApplyEnum.values()) {
+          compile(replacementProperty.getTransformationRules(), applyRule);
+        }
+      } catch (IllegalArgumentException | IllegalStateException e) {
+        throw new GitCommitIdExecutionException(
+            "Invalid transformationRules in replacementProperties: " + e.getMessage(), e);
+      }
+    }
+  }
+
+  /**
+   * Compiles the rules that apply at the given time.
+   *
+   * @param transformationRules The rules (may be {@code null}).
+   * @param applyRule When the rules apply.
+   * @return The compiled rules.
+   * @throws IllegalArgumentException if the argument of a rule is invalid.
+   * @throws IllegalStateException if a rule has no (valid) apply or action.
+   */
+  static TransformationPipeline compile(
+      @Nullable List<TransformationRule> transformationRules,
+      TransformationRule.ApplyEnum applyRule) {
+    if (transformationRules == null || transformationRules.isEmpty()) {
+      return EMPTY;
+    }
+    List<UnaryOperator<String>> stages = new ArrayList<>();
+    List<TransformationRule.CharacterAction> characterActions = new ArrayList<>();
+    for (TransformationRule transformationRule : transformationRules) {
+      if (!transformationRule.getApplyRule().equals(applyRule)) {
+        continue;
+      }
+      TransformationRule.ActionEnum action = transformationRule.getActionRule();
+      String argument = transformationRule.getArgument();
+      action.validate(argument);
+      TransformationRule.CharacterAction characterAction = action.compileCharacterAction(argument);
+      if (characterAction != null) {
+        characterActions.add(characterAction);
+      } else {
+        addPerCharacterStage(stages, characterActions);
+        stages.add(input -> action.perform(input, argument));
+      }
+    }
+    addPerCharacterStage(stages, characterActions);
+    return stages.isEmpty() ? EMPTY : new TransformationPipeline(stages);
+  }
+
+  private static void addPerCharacterStage(
+      List<UnaryOperator<String>> stages,
+      List<TransformationRule.CharacterAction> characterActions) {
+    if (characterActions.isEmpty()) {
+      return;
+    }
+    List<TransformationRule.CharacterAction> actions = new ArrayList<>(characterActions);
+    characterActions.clear();
+    // the case conversions of the default locale might not map ASCII to ASCII (e.g. Turkish)
+    boolean asciiCaseConversion =
+        "I".toLowerCase().equals("I".toLowerCase(Locale.ROOT))
+            && "i".toUpperCase().equals("i".toUpperCase(Locale.ROOT));
+    char[] table = new char[128];
+    for (char c = 0; c < table.length; c++) {
+      char mapped = c;
+      for (TransformationRule.CharacterAction action : actions) {
+        mapped = action.performOnAscii(mapped);
+      }
+      table[c] = mapped;
+    }
+    stages.add(
+        input -> {
+          if (input == null) {
+            return null;
+          }
+          char[] result = null;
+          for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c >= table.length || !asciiCaseConversion) {
+              return performOneByOne(actions, input);
+            }
+            char mapped = table[c];
+            if (mapped != c) {
+              if (result == null) {
+                result = input.toCharArray();
+              }
+              result[i] = mapped;
+            }
+          }
+          return result == null ? input : new String(result);
+        });
+  }
+
+  private static String performOneByOne(
+      List<TransformationRule.CharacterAction> actions, String input) {
+    String result = input;
+    for (TransformationRule.CharacterAction action : actions) {
+      result = action.perform(result);
+    }
+    return result;
+  }
+
+  /**
+   * Transforms the value.
+   *
+   * @param input The value (may be {@code null}).
+   * @return The transformed value.
+   */
+  String perform(@Nullable String input) {
+    String result = input;
+    for (UnaryOperator<String> stage : stages) {
+      result = stage.apply(result);
+    }
+    return result;
+  }
+}
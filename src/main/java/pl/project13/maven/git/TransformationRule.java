@@ -18,6 +18,11 @@
 
 package pl.project13.maven.git;
 
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import javax.annotation.Nullable;
 import org.apache.maven.plugins.annotations.Parameter;
 
 /**
@@ -60,40 +65,327 @@ public class TransformationRule {
 
   /**
    * Determines the action that should be performed as transformation. Currently supported is -
-   * LOWER_CASE - UPPER_CASE
+   * LOWER_CASE - UPPER_CASE - TRIM - COLLAPSE_WHITESPACE - TRUNCATE - STRIP_PREFIX - STRIP_SUFFIX -
+   * SANITIZE - DOCKER_TAG
    */
   @Parameter(required = true)
   private String action;
 
   private ActionEnum actionRule;
 
+  /**
+   * The argument of the action, required for {@code TRUNCATE} (the maximum length), {@code
+   * STRIP_PREFIX} and {@code STRIP_SUFFIX} (the text to strip), optional for {@code SANITIZE}
+   * (the allowed characters as the content of a regex character class, defaults to {@code
+   * a-zA-Z0-9_.-}).
+   *
+   * @since 7.0.1
+   */
+  @Parameter private String argument;
+
   /**
    * Each {@code transformationRule} consist of two required fields {@code apply} and {@code
    * action}.
    * The {@code action}-tag determines the string conversion rule that should be applied.
    */
   protected enum ActionEnum {
-    LOWER_CASE {
+    LOWER_CASE(argument -> CaseConversion.LOWER) {
       @Override
-      protected String perform(String input) {
+      protected String perform(String input, String argument) {
         if (input != null) {
           return input.toLowerCase();
         }
         return input;
       }
     },
-    UPPER_CASE {
+    UPPER_CASE(argument -> CaseConversion.UPPER) {
       @Override
-      protected String perform(String input) {
+      protected String perform(String input, String argument) {
         if (input != null) {
           return input.toUpperCase();
         }
         return null;
       }
     },
+    /** Removes leading and trailing whitespace. */
+    TRIM {
+      @Override
+      protected String perform(String input, String argument) {
+        return input == null ? null : input.trim();
+      }
+    },
+    /** Replaces every run of whitespace with a single space. */
+    COLLAPSE_WHITESPACE {
+      @Override
+      protected String perform(String input, String argument) {
+        if (input == null) {
+          return null;
+        }
+        StringBuilder result = new StringBuilder(input.length());
+        boolean inWhitespace = false;
+        for (int i = 0; i < input.length(); i++) {
+          char c = input.charAt(i);
+          if (Character.isWhitespace(c)) {
+            if (!inWhitespace) {
+              result.append(' ');
+            }
+            inWhitespace = true;
+          } else {
+            result.append(c);
+            inWhitespace = false;
+          }
+        }
+        String collapsed = result.toString();
+        return collapsed.equals(input) ? input : collapsed;
+      }
+    },
+    /** Truncates to at most {@code argument} characters. */
+    TRUNCATE {
+      @Override
+      protected String perform(String input, String argument) {
+        int maxLength = Integer.parseInt(argument.trim());
+        if (input == null || input.length() <= maxLength) {
+          return input;
+        }
+        int end = maxLength;
+        if (end > 0 && Character.isHighSurrogate(input.charAt(end - 1))) {
+          // never split a surrogate pair
+          end--;
+        }
+        return input.substring(0, end);
+      }
+
+      @Override
+      protected void validate(String argument) {
+        try {
+          if (argument == null || Integer.parseInt(argument.trim()) < 0) {
+            throw new IllegalArgumentException("TRUNCATE requires a non-negative length");
+          }
+        } catch (NumberFormatException e) {
+          throw new IllegalArgumentException("TRUNCATE requires a non-negative length", e);
+        }
+      }
+    },
+    /** Removes {@code argument} from the start. */
+    STRIP_PREFIX {
+      @Override
+      protected String perform(String input, String argument) {
+        if (input != null && input.startsWith(argument)) {
+          return input.substring(argument.length());
+        }
+        return input;
+      }
+
+      @Override
+      protected void validate(String argument) {
+        if (argument == null || argument.isEmpty()) {
+          throw new IllegalArgumentException("STRIP_PREFIX requires the prefix to strip");
+        }
+      }
+    },
+    /** Removes {@code argument} from the end. */
+    STRIP_SUFFIX {
+      @Override
+      protected String perform(String input, String argument) {
+        if (input != null && input.endsWith(argument)) {
+          return input.substring(0, input.length() - argument.length());
+        }
+        return input;
+      }
+
+      @Override
+      protected void validate(String argument) {
+        if (argument == null || argument.isEmpty()) {
+          throw new IllegalArgumentException("STRIP_SUFFIX requires the suffix to strip");
+        }
+      }
+    },
+    /** Replaces every character that is not allowed by {@code argument} with {@code -}. */
+    SANITIZE(argument -> argument == null ? Sanitizer.DEFAULT : new Sanitizer(argument)) {
+      @Override
+      protected String perform(String input, String argument) {
+        if (input == null) {
+          return null;
+        }
+        return compileCharacterAction(argument).perform(input);
+      }
+
+      @Override
+      protected void validate(String argument) {
+        if (argument != null) {
+          allowedCharacters(argument);
+        }
+      }
+    },
+    /**
+     * Makes the value a valid docker tag: sanitized to {@code [a-zA-Z0-9_.-]}, without a leading
+     * {@code .} or {@code -} and at most 128 characters long.
+     */
+    DOCKER_TAG {
+      @Override
+      protected String perform(String input, String argument) {
+        if (input == null) {
+          return null;
+        }
+        String result = Sanitizer.DEFAULT.perform(input);
+        int start = 0;
+        while (start < result.length()
+            && (result.charAt(start) == '.' || result.charAt(start) == '-')) {
+          start++;
+        }
+        return result.substring(start, Math.min(result.length(), start + 128));
+      }
+    },
     ;
 
-    protected abstract String perform(String input);
+    private final Function<String, CharacterAction> characterAction;
+
+    ActionEnum() {
+      this(null);
+    }
+
+    ActionEnum(Function<String, CharacterAction> characterAction) {
+      this.characterAction = characterAction;
+    }
+
+    protected String perform(String input) {
+      return perform(input, null);
+    }
+
+    protected abstract String perform(String input, String argument);
+
+    /**
+     * Compiles the action for the argument of a rule if it transforms every character on its own,
+     * so it can be fused with neighbouring actions of the same kind.
+     *
+     * @param argument The argument of the rule.
+     * @return The compiled action or {@code null} if the action transforms the value as a whole.
+     */
+    @Nullable
+    protected CharacterAction compileCharacterAction(String argument) {
+      return characterAction == null ? null : characterAction.apply(argument);
+    }
+
+    /**
+     * Validates the argument of the rule.
+     *
+     * @param argument The argument of the rule.
+     * @throws IllegalArgumentException if the argument is invalid.
+     */
+    protected void validate(String argument) {}
+  }
+
+  /**
+   * A compiled action that transforms every character on its own ({@code LOWER_CASE}, {@code
+   * UPPER_CASE} and {@code SANITIZE}).
+   */
+  interface CharacterAction {
+    /**
+     * Transforms a single ASCII character.
+     *
+     * @param c The ASCII character.
+     * @return The transformed character.
+     */
+    char performOnAscii(char c);
+
+    /**
+     * Transforms a value that may contain any character.
+     *
+     * @param input The value.
+     * @return The transformed value.
+     */
+    String perform(String input);
+  }
+
+  /** The ASCII part of {@code LOWER_CASE} and {@code UPPER_CASE}. */
+  private static final class CaseConversion implements CharacterAction {
+    private static final CaseConversion LOWER = new CaseConversion(false);
+    private static final CaseConversion UPPER = new CaseConversion(true);
+
+    private final boolean upperCase;
+
+    private CaseConversion(boolean upperCase) {
+      this.upperCase = upperCase;
+    }
+
+    @Override
+    public char performOnAscii(char c) {
+      if (upperCase) {
+        return c >= 'a' && c <= 'z' ? (char) (c - ('a' - 'A')) : c;
+      }
+      return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    @Override
+    public String perform(String input) {
+      return upperCase ? input.toUpperCase() : input.toLowerCase();
+    }
+  }
+
+  /**
+   * {@code SANITIZE} with its allowed characters compiled once: a lookup table for the ASCII
+   * characters and the pattern for all other characters. The value is checked per code point, so a
+   * character outside of the basic multilingual plane (e.g. an emoji) is replaced by a single
+   * {@code -}.
+   */
+  private static final class Sanitizer implements CharacterAction {
+    private static final Sanitizer DEFAULT = new Sanitizer("a-zA-Z0-9_.-");
+
+    private final boolean[] allowedAscii = new boolean[128];
+    private final Pattern allowed;
+
+    private Sanitizer(String allowedCharacters) {
+      allowed = allowedCharacters(allowedCharacters);
+      for (char c = 0; c < allowedAscii.length; c++) {
+        allowedAscii[c] = allowed.matcher(String.valueOf(c)).matches();
+      }
+    }
+
+    @Override
+    public char performOnAscii(char c) {
+      return allowedAscii[c] ? c : '-';
+    }
+
+    @Override
+    public String perform(String input) {
+      StringBuilder result = null;
+      Matcher matcher = null;
+      int i = 0;
+      while (i < input.length()) {
+        int codePoint = input.codePointAt(i);
+        int next = i + Character.charCount(codePoint);
+        boolean isAllowed;
+        if (codePoint < allowedAscii.length) {
+          isAllowed = allowedAscii[codePoint];
+        } else {
+          if (matcher == null) {
+            matcher = allowed.matcher(input);
+          }
+          isAllowed = matcher.region(i, next).matches();
+        }
+        if (!isAllowed && result == null) {
+          result = new StringBuilder(input.length()).append(input, 0, i);
+        }
+        if (result != null) {
+          if (isAllowed) {
+            result.append(input, i, next);
+          } else {
+            result.append('-');
+          }
+        }
+        i = next;
+      }
+      return result == null ? input : result.toString();
+    }
+  }
+
+  private static Pattern allowedCharacters(String argument) {
+    try {
+      return Pattern.compile("[" + argument + "]");
+    } catch (PatternSyntaxException e) {
+      throw new IllegalArgumentException(
+          "SANITIZE requires the allowed characters as the content of a character class", e);
+    }
   }
 
   public TransformationRule() {}
@@ -104,6 +396,18 @@ public class TransformationRule {
     this.action = action;
   }
 
+  /**
+   * Constructor for a transformation rule with an argument (e.g. {@code TRUNCATE}).
+   *
+   * @param apply When the rule is applied ({@code BEFORE} or {@code AFTER}).
+   * @param action The action of the rule.
+   * @param argument The argument of the action.
+   */
+  public TransformationRule(String apply, String action, String argument) {
+    this(apply, action);
+    this.argument = argument;
+  }
+
   protected TransformationRule(ApplyEnum applyRule, ActionEnum actionRule) {
     this.applyRule = applyRule;
     this.actionRule = actionRule;
@@ -142,4 +446,12 @@ public class TransformationRule {
     }
     return actionRule;
   }
+
+  public String getArgument() {
+    return argument;
+  }
+
+  public void setArgument(String argument) {
+    this.argument = argument;
+  }
 }
@@ -0,0 +1,114 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+import pl.project13.core.GitCommitIdExecutionException;
+import pl.project13.core.log.LogInterface;
+import pl.project13.log.DummyTestLoggerBridge;
+
+/**
+ * Testcases to verify that the {@link CancellableGitRun} works properly.
+ */
+public class CancellableGitRunTest {
+  @Test
+  public void shouldRunWithoutBudgetOnCallingThread() throws Exception {
+    AtomicReference<Thread> thread = new AtomicReference<>();
+
+    boolean finished = new CancellableGitRun().run(() -> thread.set(Thread.currentThread()), 0);
+
+    assertThat(finished).isTrue();
+    assertThat(thread.get()).isSameAs(Thread.currentThread());
+  }
+
+  @Test
+  public void shouldCancelAtNextCancellationPointAndNeverPublish() throws Exception {
+    CancellableGitRun run = new CancellableGitRun();
+    DummyTestLoggerBridge delegate = new DummyTestLoggerBridge();
+    LogInterface log = run.cancellationPoints(delegate);
+    CountDownLatch stopped = new CountDownLatch(1);
+    AtomicBoolean published = new AtomicBoolean(false);
+
+    boolean finished =
+        run.run(
+            () -> {
+              try {
+                while (true) {
+                  log.debug("computing the next property");
+                }
+              } finally {
+                try {
+                  run.runIfNotCancelled(() -> published.set(true));
+                } finally {
+                  stopped.countDown();
+                }
+              }
+            },
+            50);
+
+    assertThat(finished).isFalse();
+    assertThat(stopped.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(published.get()).isFalse();
+    // the calling thread is not affected by the cancellation
+    log.info("continuing with partial properties");
+    assertThat(delegate.getInfos()).containsExactly("continuing with partial properties");
+  }
+
+  @Test
+  public void shouldRunActionsOnceTheCancelledWorkerHasStopped() throws Exception {
+    CancellableGitRun run = new CancellableGitRun();
+    AtomicBoolean stop = new AtomicBoolean(false);
+    CountDownLatch stopped = new CountDownLatch(1);
+
+    boolean finished =
+        run.run(
+            () -> {
+              while (!stop.get()) {
+                Thread.yield();
+              }
+            },
+            20);
+    run.whenStopped(stopped::countDown);
+
+    assertThat(finished).isFalse();
+    assertThat(stopped.await(100, TimeUnit.MILLISECONDS)).isFalse();
+    stop.set(true);
+    assertThat(stopped.await(10, TimeUnit.SECONDS)).isTrue();
+    // a run that already stopped runs the action right away
+    AtomicBoolean ranImmediately = new AtomicBoolean(false);
+    run.whenStopped(() -> ranImmediately.set(true));
+    assertThat(ranImmediately.get()).isTrue();
+  }
+
+  @Test(expected = GitCommitIdExecutionException.class)
+  public void shouldPropagateFailureOfTheRun() throws Exception {
+    new CancellableGitRun()
+        .run(
+            () -> {
+              throw new GitCommitIdExecutionException("broken repository");
+            },
+            10_000);
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import org.junit.Test;
+
+/**
+ * Testcases to verify that the {@link CompactProperties} works properly.
+ */
+public class CompactPropertiesTest {
+  @Test
+  public void shouldLookUpAndIterateInKeyOrder() {
+    Properties properties = new Properties();
+    properties.setProperty("git.tags", "v1.0.0");
+    properties.setProperty("git.branch", "master");
+    properties.setProperty("git.dirty", "false");
+
+    CompactProperties compactProperties = CompactProperties.of(properties);
+    List<String> keys = new ArrayList<>();
+    compactProperties.forEach((key, value) -> keys.add(key));
+
+    assertThat(compactProperties.size()).isEqualTo(3);
+    assertThat(compactProperties.get("git.branch")).isEqualTo("master");
+    assertThat(compactProperties.get("git.commit.id")).isNull();
+    assertThat(keys).containsExactly("git.branch", "git.dirty", "git.tags");
+  }
+
+  @Test
+  public void shouldNotBeAffectedByLaterChanges() {
+    Properties properties = new Properties();
+    properties.setProperty("git.branch", "master");
+
+    CompactProperties compactProperties = CompactProperties.of(properties);
+    properties.setProperty("git.branch", "develop");
+    Properties copy = compactProperties.toProperties();
+    copy.setProperty("git.dirty", "true");
+
+    assertThat(compactProperties.get("git.branch")).isEqualTo("master");
+    assertThat(compactProperties.get("git.dirty")).isNull();
+  }
+
+  @Test
+  public void shouldBeEqualForEqualProperties() {
+    Properties properties = new Properties();
+    properties.setProperty("git.branch", "master");
+    Properties other = new Properties();
+    other.setProperty("git.branch", "master");
+
+    assertThat(CompactProperties.of(properties)).isEqualTo(CompactProperties.of(other));
+    other.setProperty("git.branch", "develop");
+    assertThat(CompactProperties.of(properties)).isNotEqualTo(CompactProperties.of(other));
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import org.junit.Test;
+import pl.project13.log.DummyTestLoggerBridge;
+
+/**
+ * Testcases to verify that the {@link DerivedProperties} work properly.
+ */
+public class DerivedPropertiesTest {
+  @Test
+  public void shouldDeriveFromGeneratedAndOtherDerivedProperties() {
+    Map<String, String> config = new LinkedHashMap<>();
+    config.put("docker.image", "app:@{docker.tag}");
+    config.put("docker.tag", "@{git.branch}-@{ git.commit.id.abbrev }");
+    config.put("plain", "no references");
+    Properties properties = new Properties();
+    properties.setProperty("git.branch", "main");
+    properties.setProperty("git.commit.id.abbrev", "1a2b3c4");
+    DummyTestLoggerBridge log = new DummyTestLoggerBridge();
+
+    DerivedProperties.compile(new Object(), config).derive(properties, key -> null, log);
+
+    assertThat(properties.getProperty("docker.tag")).isEqualTo("main-1a2b3c4");
+    assertThat(properties.getProperty("docker.image")).isEqualTo("app:main-1a2b3c4");
+    assertThat(properties.getProperty("plain")).isEqualTo("no references");
+    assertThat(log.getWarns()).isEmpty();
+  }
+
+  @Test
+  public void shouldKeepUnresolvedReferences() {
+    Map<String, String> config = new LinkedHashMap<>();
+    config.put("a", "@{missing}-@{b}-@{lazy}-@{unclosed");
+    config.put("b", "@{a}");
+    Properties properties = new Properties();
+    DummyTestLoggerBridge log = new DummyTestLoggerBridge();
+
+    DerivedProperties.compile(new Object(), config)
+        .derive(properties, key -> key.equals("lazy") ? "computed" : null, log);
+
+    // the cycle a -> b -> a is broken at the reference that closes it
+    assertThat(properties.getProperty("a")).isEqualTo("@{missing}-@{a}-computed-@{unclosed");
+    assertThat(properties.getProperty("b")).isEqualTo("@{a}");
+    assertThat(log.getWarns().size()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldCompileTemplatesOncePerScope() {
+    Object scope = new Object();
+    Map<String, String> config = new LinkedHashMap<>();
+    config.put("a", "@{x}");
+    config.put("b", "@{x}");
+    DerivedProperties first = DerivedProperties.compile(scope, config);
+    DerivedProperties second = DerivedProperties.compile(scope, config);
+
+    assertThat(DerivedProperties.compile(scope, null)).isNull();
+    assertThat(first.template("a")).isSameAs(first.template("b"));
+    assertThat(first.template("a")).isSameAs(second.template("a"));
+    assertThat(DerivedProperties.compile(new Object(), config).template("a"))
+        .isNotSameAs(first.template("a"));
+  }
+}
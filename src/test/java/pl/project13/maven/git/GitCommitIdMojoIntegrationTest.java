@@ -30,6 +30,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -1723,6 +1724,150 @@ public class GitCommitIdMojoIntegrationTest extends GitIntegrationTest {
     }
   }
 
+  @Test
+  @Parameters(method = "useNativeGit")
+  public void shouldRenderOutputProfilesFromASingleExecution(boolean useNativeGit)
+      throws Exception {
+    // given
+    mavenSandbox
+        .withParentProject("my-pom-project", "pom")
+        .withGitRepoInParent(AvailableGitTestRepo.ON_A_TAG)
+        .withChildProject("my-child-module", "jar")
+        .create();
+    MavenProject targetProject = mavenSandbox.getChildProject();
+
+    String targetFilePath = "target/classes/app-git.json";
+    File expectedFile = new File(targetProject.getBasedir(), targetFilePath);
+
+    setProjectToExecuteMojoIn(targetProject);
+    mojo.gitDescribe = createGitDescribeConfig(false, 7);
+    mojo.useNativeGit = useNativeGit;
+    mojo.injectAllReactorProjects = true;
+    mojo.outputProfiles =
+        Arrays.asList(
+            new OutputProfile("prefix-one", null, null, null, null),
+            new OutputProfile(
+                "app.git",
+                "json",
+                targetFilePath,
+                Collections.singletonList("^app.git.commit.id.abbrev$"),
+                null));
+
+    // when
+    try {
+      mojo.execute();
+
+      // then
+      Properties properties = mavenSandbox.getParentProject().getProperties();
+      assertPropertyPresentAndEqual(properties, "git.commit.id.abbrev", "de4db35");
+      assertPropertyPresentAndEqual(properties, "prefix-one.commit.id.abbrev", "de4db35");
+      assertPropertyPresentAndEqual(properties, "prefix-one.closest.tag.name", "v1.0.0");
+      assertPropertyPresentAndEqual(properties, "app.git.commit.id.abbrev", "de4db35");
+      assertThat(properties).doesNotContainKey("app.git.closest.tag.name");
+
+      Properties p =
+          GenericFileManager.readPropertiesAsUtf8(
+              CommitIdPropertiesOutputFormat.JSON, expectedFile);
+      assertThat(p).containsOnly(entry("app.git.commit.id.abbrev", "de4db35"));
+    } finally {
+      FileUtils.forceDelete(expectedFile);
+    }
+  }
+
+  @Test
+  @Parameters(method = "useNativeGit")
+  public void shouldDeriveLateBoundPropertiesFromTheGeneratedProperties(boolean useNativeGit)
+      throws Exception {
+    // given
+    mavenSandbox
+        .withParentProject("my-pom-project", "pom")
+        .withChildProject("my-jar-module", "jar")
+        .withGitRepoInChild(AvailableGitTestRepo.ON_A_TAG)
+        .create();
+    MavenProject targetProject = mavenSandbox.getChildProject();
+    setProjectToExecuteMojoIn(targetProject);
+    mojo.gitDescribe = createGitDescribeConfig(false, 7);
+    mojo.useNativeGit = useNativeGit;
+    Map<String, String> derivedProperties = new LinkedHashMap<>();
+    derivedProperties.put("git.docker.image", "app:@{git.docker.tag}");
+    derivedProperties.put("git.docker.tag", "@{git.closest.tag.name}-@{git.commit.id.abbrev}");
+    derivedProperties.put("git.unresolved", "@{git.no.such.property}");
+    mojo.derivedProperties = derivedProperties;
+
+    // when
+    mojo.execute();
+
+    // then
+    Properties properties = targetProject.getProperties();
+    assertPropertyPresentAndEqual(properties, "git.docker.tag", "v1.0.0-de4db35");
+    assertPropertyPresentAndEqual(properties, "git.docker.image", "app:v1.0.0-de4db35");
+    assertPropertyPresentAndEqual(properties, "git.unresolved", "@{git.no.such.property}");
+  }
+
+  @Test
+  @Parameters(method = "useNativeGit")
+  public void shouldPublishToAllReactorProjectsOnlyOnce(boolean useNativeGit) throws Exception {
+    // given
+    mavenSandbox
+        .withParentProject("my-pom-project", "pom")
+        .withGitRepoInParent(AvailableGitTestRepo.ON_A_TAG)
+        .withChildProject("my-child-module", "jar")
+        .create();
+    MavenProject parentProject = mavenSandbox.getParentProject();
+    MavenProject childProject = mavenSandbox.getChildProject();
+    String contextKey = GitCommitIdMojo.class.getName() + ".properties";
+
+    mojo.gitDescribe = createGitDescribeConfig(false, 7);
+    mojo.useNativeGit = useNativeGit;
+    mojo.injectAllReactorProjects = true;
+    mojo.skipPoms = false;
+
+    // when
+    setProjectToExecuteMojoIn(parentProject);
+    mojo.execute();
+    Object published = childProject.getContextValue(contextKey);
+    setProjectToExecuteMojoIn(childProject);
+    mojo.execute();
+
+    // then
+    assertThat(published).isInstanceOf(CompactProperties.class);
+    assertThat(childProject.getContextValue(contextKey)).isSameAs(published);
+    assertThat(parentProject.getContextValue(contextKey)).isSameAs(published);
+    assertPropertyPresentAndEqual(childProject.getProperties(), "git.commit.id.abbrev", "de4db35");
+  }
+
+  @Test
+  @Parameters(method = "useNativeGit")
+  public void shouldComputeBudgetedPropertyGroupsWithinTheirBudget(boolean useNativeGit)
+      throws Exception {
+    // given
+    mavenSandbox
+        .withParentProject("my-pom-project", "pom")
+        .withChildProject("my-jar-module", "jar")
+        .withGitRepoInChild(AvailableGitTestRepo.ON_A_TAG)
+        .create();
+    MavenProject targetProject = mavenSandbox.getChildProject();
+
+    setProjectToExecuteMojoIn(targetProject);
+    mojo.gitDescribe = createGitDescribeConfig(true, 7);
+    mojo.useNativeGit = useNativeGit;
+    Map<String, String> budgets = new HashMap<>();
+    budgets.put("describe", "60000");
+    budgets.put("dirty", "60000");
+    budgets.put("aheadBehind", "60000");
+    mojo.propertyGroupTimeoutsInMs = budgets;
+
+    // when
+    mojo.execute();
+
+    // then
+    Properties properties = targetProject.getProperties();
+    assertPropertyPresentAndEqual(properties, "git.commit.id.describe", "v1.0.0-0-gde4db35");
+    assertThat(properties).satisfies(new ContainsKeyCondition("git.dirty"));
+    assertThat(properties.getProperty("git.dirty")).isNotEqualTo(PropertyGroupBudgets.UNKNOWN);
+    assertThat(properties).satisfies(new ContainsKeyCondition("git.closest.tag.name"));
+  }
+
   private GitDescribeConfig createGitDescribeConfig(boolean forceLongFormat, int abbrev) {
     GitDescribeConfig gitDescribeConfig = new GitDescribeConfig();
     gitDescribeConfig.setTags(true);
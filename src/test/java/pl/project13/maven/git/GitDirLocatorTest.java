@@ -21,6 +21,7 @@ package pl.project13.maven.git;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.Collections;
 import java.util.List;
@@ -57,6 +58,35 @@ public class GitDirLocatorTest {
     }
   }
 
+  @Test
+  public void shouldDetectReftableRefStorage() throws Exception {
+    // given
+    File dotGitDir = Files.createTempDirectory("temp").toFile();
+    File config = new File(dotGitDir, "config");
+    try {
+      Files.write(
+          config.toPath(),
+          "[core]\n\trepositoryformatversion = 1\n".getBytes(StandardCharsets.UTF_8));
+      assertThat(GitDirLocator.isReftableRepository(dotGitDir)).isFalse();
+
+      // when
+      Files.write(
+          config.toPath(),
+          "[core]\n\trepositoryformatversion = 1\n[extensions]\n\trefStorage = reftable\n"
+              .getBytes(StandardCharsets.UTF_8));
+
+      // then
+      assertThat(GitDirLocator.isReftableRepository(dotGitDir)).isTrue();
+    } finally {
+      if (!config.delete()) {
+        config.deleteOnExit();
+      }
+      if (!dotGitDir.delete()) {
+        dotGitDir.deleteOnExit();
+      }
+    }
+  }
+
   @Test
   public void testWorktreeResolution() {
     String[] noopCases = {"", "a", "a/b", ".git/worktrees", ".git/worktrees/", "a.git/worktrees/b"};
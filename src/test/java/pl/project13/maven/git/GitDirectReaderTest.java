@@ -0,0 +1,129 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testcases to verify that the {@link GitDirectReader} works properly.
+ */
+public class GitDirectReaderTest {
+  private static final String ID_1 = "de4db35917b268089c81c9ab1b52541bb778f5a0";
+  private static final String ID_2 = "b6a73ed747dd8dc98642d731ddbf09824efb9d48";
+  private static final String ID_3 = "8b7c5ff3dc1a63d3a9b51f3f3c4d0d1b06e1ab12";
+
+  private File dotGitDir;
+
+  @Before
+  public void setUp() throws IOException {
+    dotGitDir = Files.createTempDirectory("git-direct-read").toFile();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(dotGitDir);
+  }
+
+  @Test
+  public void shouldResolveLooseBranch() throws IOException {
+    write("HEAD", "ref: refs/heads/feature/x\n");
+    write("refs/heads/feature/x", ID_1 + "\n");
+
+    GitDirectReader.Head head = new GitDirectReader(dotGitDir).readHead();
+
+    assertThat(head).isNotNull();
+    assertThat(head.getCommitId()).isEqualTo(ID_1);
+    assertThat(head.getBranch()).isEqualTo("feature/x");
+  }
+
+  @Test
+  public void shouldResolvePackedBranch() throws IOException {
+    write("HEAD", "ref: refs/heads/master\n");
+    write(
+        "packed-refs",
+        "# pack-refs with: peeled fully-peeled sorted \n"
+            + ID_2 + " refs/heads/develop\n"
+            + ID_1 + " refs/heads/master\n"
+            + ID_3 + " refs/heads/release\n"
+            + ID_2 + " refs/tags/v1.0.0\n"
+            + "^" + ID_1 + "\n"
+            + ID_3 + " refs/tags/v2.0.0\n");
+
+    GitDirectReader.Head head = new GitDirectReader(dotGitDir).readHead();
+
+    assertThat(head).isNotNull();
+    assertThat(head.getCommitId()).isEqualTo(ID_1);
+    assertThat(head.getBranch()).isEqualTo("master");
+  }
+
+  @Test
+  public void shouldFindEveryRefInSortedAndUnsortedPackedRefs() throws IOException {
+    String refs =
+        ID_2 + " refs/heads/a\n"
+            + ID_1 + " refs/heads/b\n"
+            + "^" + ID_3 + "\n"
+            + ID_3 + " refs/heads/c\n";
+    for (String header : new String[] {"# pack-refs with: peeled sorted \n", ""}) {
+      write("packed-refs", header + refs);
+      File packedRefs = new File(dotGitDir, "packed-refs");
+
+      assertThat(GitDirectReader.findPackedRef(packedRefs, "refs/heads/a")).isEqualTo(ID_2);
+      assertThat(GitDirectReader.findPackedRef(packedRefs, "refs/heads/b")).isEqualTo(ID_1);
+      assertThat(GitDirectReader.findPackedRef(packedRefs, "refs/heads/c")).isEqualTo(ID_3);
+      assertThat(GitDirectReader.findPackedRef(packedRefs, "refs/heads/d")).isNull();
+      assertThat(GitDirectReader.findPackedRef(packedRefs, "refs/heads/")).isNull();
+    }
+  }
+
+  @Test
+  public void shouldResolveDetachedHead() throws IOException {
+    write("HEAD", ID_3 + "\n");
+
+    GitDirectReader.Head head = new GitDirectReader(dotGitDir).readHead();
+
+    assertThat(head).isNotNull();
+    assertThat(head.getCommitId()).isEqualTo(ID_3);
+    assertThat(head.getBranch()).isNull();
+  }
+
+  @Test
+  public void shouldGiveUpOnUnbornBranchAndReftable() throws IOException {
+    write("HEAD", "ref: refs/heads/master\n");
+    assertThat(new GitDirectReader(dotGitDir).readHead()).isNull();
+
+    write("refs/heads/master", ID_1 + "\n");
+    write("config", "[extensions]\n\trefStorage = reftable\n");
+    assertThat(new GitDirectReader(dotGitDir).readHead()).isNull();
+  }
+
+  private void write(String path, String content) throws IOException {
+    File file = new File(dotGitDir, path);
+    Files.createDirectories(file.getParentFile().toPath());
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import pl.project13.core.CommitIdPropertiesOutputFormat;
+import pl.project13.log.DummyTestLoggerBridge;
+
+/**
+ * Testcases to verify that the {@link GitPropertiesFileWriter} works properly.
+ */
+public class GitPropertiesFileWriterTest {
+  private File directory;
+  private List<File> changedFiles;
+  private GitPropertiesFileWriter writer;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("git-properties-file-writer").toFile();
+    changedFiles = Collections.synchronizedList(new ArrayList<>());
+    writer = new GitPropertiesFileWriter(new DummyTestLoggerBridge(), changedFiles::add);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(directory);
+  }
+
+  @Test
+  public void shouldRenderSortedPropertiesWithoutTimestamp() throws IOException {
+    Properties properties = new Properties();
+    properties.setProperty("git.commit.message.full", " Fix: a = b #1\nmore\u00E4");
+    properties.setProperty("git.branch", "main");
+
+    String content =
+        GitPropertiesFileWriter.render(properties, CommitIdPropertiesOutputFormat.PROPERTIES, true);
+
+    assertThat(content)
+        .isEqualTo(
+            "#Generated by Git-Commit-Id-Plugin\n"
+                + "git.branch=main\n"
+                + "git.commit.message.full=\\ Fix\\: a \\= b \\#1\\nmore\\u00E4\n");
+    Properties loaded = new Properties();
+    loaded.load(new StringReader(content));
+    assertThat(loaded).isEqualTo(properties);
+  }
+
+  @Test
+  public void shouldRenderSortedJson() {
+    Properties properties = new Properties();
+    properties.setProperty("git.dirty", "false");
+    properties.setProperty("git.branch", "fix/\"quoted\"\\");
+
+    String content =
+        GitPropertiesFileWriter.render(properties, CommitIdPropertiesOutputFormat.JSON, true);
+
+    assertThat(content)
+        .isEqualTo(
+            "{\n"
+                + "  \"git.branch\" : \"fix/\\\"quoted\\\"\\\\\",\n"
+                + "  \"git.dirty\" : \"false\"\n"
+                + "}\n");
+  }
+
+  @Test
+  public void shouldOnlyWriteChangedContent() throws Exception {
+    File file = new File(directory, "target/classes/git.properties");
+    Properties properties = new Properties();
+    properties.setProperty("git.branch", "main");
+
+    assertThat(write(properties, file)).isTrue();
+    byte[] written = Files.readAllBytes(file.toPath());
+    assertThat(write(properties, file)).isFalse();
+    assertThat(changedFiles.size()).isEqualTo(1);
+
+    properties.setProperty("git.branch", "other");
+    assertThat(write(properties, file)).isTrue();
+    assertThat(changedFiles.size()).isEqualTo(2);
+    assertThat(Files.readAllBytes(file.toPath())).isNotEqualTo(written);
+  }
+
+  @Test
+  public void shouldKeepFileThatOnlyDiffersInBuildTime() throws Exception {
+    File file = new File(directory, "git.properties");
+    Properties properties = new Properties();
+    properties.setProperty("git.branch", "main");
+    properties.setProperty("git.build.time", "2024-01-01T00:00:00Z");
+    write(properties, file);
+    String written = new String(Files.readAllBytes(file.toPath()), StandardCharsets.ISO_8859_1);
+
+    properties.setProperty("git.build.time", "2024-01-02T00:00:00Z");
+
+    assertThat(write(properties, file)).isFalse();
+    assertThat(new String(Files.readAllBytes(file.toPath()), StandardCharsets.ISO_8859_1))
+        .isEqualTo(written);
+    assertThat(changedFiles.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldWriteSharedFileOnceAndAtomically() throws Exception {
+    File file = new File(directory, "shared/git.properties");
+    Properties properties = new Properties();
+    properties.setProperty("git.branch", "main");
+    int writers = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(writers);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Boolean>> written = new ArrayList<>();
+    try {
+      for (int i = 0; i < writers; i++) {
+        written.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  return write(properties, file);
+                }));
+      }
+      start.countDown();
+      int writes = 0;
+      for (Future<Boolean> result : written) {
+        writes += result.get(10, TimeUnit.SECONDS) ? 1 : 0;
+      }
+
+      assertThat(writes).isEqualTo(1);
+      assertThat(changedFiles.size()).isEqualTo(1);
+      // no temporary files are left behind
+      assertThat(Arrays.asList(file.getParentFile().list())).containsExactly("git.properties");
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private boolean write(Properties properties, File file) throws Exception {
+    return writer.write(
+        properties,
+        directory,
+        file,
+        CommitIdPropertiesOutputFormat.PROPERTIES,
+        StandardCharsets.UTF_8,
+        true,
+        "git.",
+        "my-project");
+  }
+}
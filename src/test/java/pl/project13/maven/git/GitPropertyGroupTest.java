@@ -0,0 +1,84 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import org.junit.Test;
+
+/**
+ * Testcases to verify that the {@link GitPropertyGroup}s are selected like the properties are
+ * filtered.
+ */
+public class GitPropertyGroupTest {
+  @Test
+  public void shouldSelectAllGroupsWithoutFilters() {
+    assertThat(GitPropertyGroup.selectedGroups("git.", null, Collections.emptyList()))
+        .isEqualTo(EnumSet.allOf(GitPropertyGroup.class));
+  }
+
+  @Test
+  public void shouldSelectOnlyGroupsWithIncludedProperties() {
+    assertThat(
+            GitPropertyGroup.selectedGroups(
+                "git.",
+                asList("^git.commit.id.abbrev$", "^git.branch$", "git.build.time", "git.tags"),
+                null))
+        .isEqualTo(
+            EnumSet.of(
+                GitPropertyGroup.BUILD,
+                GitPropertyGroup.COMMIT_ID,
+                GitPropertyGroup.BRANCH,
+                GitPropertyGroup.TAGS));
+  }
+
+  @Test
+  public void shouldDropGroupsWhoseAllPropertiesAreExcluded() {
+    assertThat(
+            GitPropertyGroup.selectedGroups(
+                "my.", null, asList("my.commit.id.describe.*", "^my.dirty$", "my.local.branch.*")))
+        .doesNotContain(
+            GitPropertyGroup.DESCRIBE, GitPropertyGroup.DIRTY, GitPropertyGroup.AHEAD_BEHIND)
+        .contains(GitPropertyGroup.COMMIT_ID, GitPropertyGroup.CLOSEST_TAG);
+  }
+
+  @Test
+  public void shouldKeepGroupIfOnlySomePropertiesAreExcluded() {
+    assertThat(
+            GitPropertyGroup.selectedGroups(
+                "git.", asList("git.commit.id.describe"), asList("describe-short")))
+        .containsExactly(GitPropertyGroup.DESCRIBE);
+  }
+
+  @Test
+  public void shouldMatchUnanchoredFiltersAgainstTheWholeKey() {
+    // like in the PropertiesFilterer, the exclusion does not match git.commit.id.describe-short
+    assertThat(GitPropertyGroup.selectedGroups("git.", null, asList("git.commit.id.describe")))
+        .contains(GitPropertyGroup.DESCRIBE);
+    assertThat(
+            GitPropertyGroup.DESCRIBE.selectedKeys(
+                "git.", null, asList("git.commit.id.describe")))
+        .containsExactly("git.commit.id.describe-short");
+    // a regex that is only part of the key matches nothing
+    assertThat(GitPropertyGroup.selectedGroups("git.", asList("branch"), null)).isEmpty();
+  }
+}
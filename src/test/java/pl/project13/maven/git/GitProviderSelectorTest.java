@@ -0,0 +1,152 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import pl.project13.log.DummyTestLoggerBridge;
+
+/**
+ * Testcases to verify that the {@link GitProviderSelector} works properly.
+ */
+public class GitProviderSelectorTest {
+  private File dotGitDir;
+
+  @Before
+  public void setUp() throws IOException {
+    dotGitDir = Files.createTempDirectory("git-provider-selector").toFile();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(dotGitDir);
+  }
+
+  @Test
+  public void shouldSelectJGitForSmallRepositories() throws IOException {
+    writeIndex(10);
+
+    GitProviderSelector selector =
+        new GitProviderSelector(dotGitDir, null, new DummyTestLoggerBridge());
+
+    assertThat(selector.countIndexEntries()).isEqualTo(10);
+    assertThat(selector.selectNativeGit()).isFalse();
+  }
+
+  @Test
+  public void shouldSelectNativeGitForHugeIndex() throws IOException {
+    writeIndex(GitProviderSelector.NATIVE_INDEX_ENTRIES_THRESHOLD + 1);
+
+    GitProviderSelector selector =
+        new GitProviderSelector(dotGitDir, null, new DummyTestLoggerBridge());
+
+    assertThat(selector.selectNativeGit()).isTrue();
+  }
+
+  @Test
+  public void shouldPreferMeasuredTimingsOnceBothProvidersAreKnown() throws IOException {
+    writeIndex(GitProviderSelector.NATIVE_INDEX_ENTRIES_THRESHOLD + 1);
+    File timings = new File(dotGitDir, "timings/provider.properties");
+    GitProviderSelector selector =
+        new GitProviderSelector(dotGitDir, timings, new DummyTestLoggerBridge());
+
+    selector.recordTiming(true, 900);
+    assertThat(selector.selectNativeGit()).isTrue();
+
+    selector.recordTiming(false, 200);
+    assertThat(timings).isFile();
+    assertThat(selector.selectNativeGit()).isFalse();
+  }
+
+  @Test
+  public void shouldAvoidAProviderThatFailed() throws IOException {
+    writeIndex(10);
+    File timings = new File(dotGitDir, "timings/provider.properties");
+    GitProviderSelector selector =
+        new GitProviderSelector(dotGitDir, timings, new DummyTestLoggerBridge());
+
+    selector.recordTiming(false, 200);
+    selector.recordTiming(true, 900);
+    assertThat(selector.selectNativeGit()).isFalse();
+
+    // jgit failed fast, the fallback to the native git executable succeeded
+    selector.recordFailure(false, 10);
+    selector.recordTiming(true, 900);
+    assertThat(selector.selectNativeGit()).isTrue();
+  }
+
+  @Test
+  public void shouldKeepTheMeasurementsOfConcurrentModules() throws Exception {
+    File timings = new File(dotGitDir, "timings/provider.properties");
+    int modules = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(modules);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> recorded = new ArrayList<>();
+    try {
+      for (int i = 0; i < modules; i++) {
+        boolean nativeGit = i % 2 == 0;
+        recorded.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  new GitProviderSelector(dotGitDir, timings, new DummyTestLoggerBridge())
+                      .recordTiming(nativeGit, 100);
+                  return null;
+                }));
+      }
+      start.countDown();
+      for (Future<?> result : recorded) {
+        result.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Properties persisted = new Properties();
+    try (InputStream in = Files.newInputStream(timings.toPath())) {
+      persisted.load(in);
+    }
+    assertThat(persisted.getProperty("jgit.averageInMs")).isEqualTo("100");
+    assertThat(persisted.getProperty("native.averageInMs")).isEqualTo("100");
+    assertThat(new File(timings.getParentFile(), "provider.properties.lock")).doesNotExist();
+  }
+
+  private void writeIndex(long entries) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(12);
+    header.putInt(0x44495243).putInt(2).putInt((int) entries);
+    Files.write(new File(dotGitDir, "index").toPath(), header.array());
+  }
+}
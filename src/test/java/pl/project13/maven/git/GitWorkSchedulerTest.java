@@ -0,0 +1,145 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import pl.project13.log.DummyTestLoggerBridge;
+
+/**
+ * Testcases to verify that the {@link GitWorkScheduler} works properly.
+ */
+public class GitWorkSchedulerTest {
+  @Test
+  public void shouldNeverExceedTheConcurrencyLimit() throws Exception {
+    GitWorkScheduler scheduler = new GitWorkScheduler(2);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      CountDownLatch done = new CountDownLatch(8);
+      for (int i = 0; i < 8; i++) {
+        executor.submit(
+            () -> {
+              scheduler.run(
+                  new DummyTestLoggerBridge(),
+                  () -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                      Thread.sleep(20);
+                    } catch (InterruptedException e) {
+                      Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                  });
+              done.countDown();
+              return null;
+            });
+      }
+
+      assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+      assertThat(maxRunning.get()).isLessThanOrEqualTo(2);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void shouldNotRequireAnotherPermitForNestedGitWork() throws Exception {
+    GitWorkScheduler scheduler = new GitWorkScheduler(1);
+    DummyTestLoggerBridge log = new DummyTestLoggerBridge();
+    AtomicInteger runs = new AtomicInteger();
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<?> nested =
+          executor.submit(
+              () -> {
+                scheduler.run(log, () -> scheduler.run(log, runs::incrementAndGet));
+                return null;
+              });
+
+      nested.get(10, TimeUnit.SECONDS);
+      assertThat(runs.get()).isEqualTo(1);
+      // the permit was released again
+      scheduler.run(log, runs::incrementAndGet);
+      assertThat(runs.get()).isEqualTo(2);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void shouldKeepThePermitUntilACancelledRunHasStopped() throws Exception {
+    GitWorkScheduler scheduler = new GitWorkScheduler(1);
+    DummyTestLoggerBridge log = new DummyTestLoggerBridge();
+    AtomicBoolean stop = new AtomicBoolean(false);
+    CountDownLatch nextRan = new CountDownLatch(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      scheduler.run(
+          log,
+          () -> {
+            CancellableGitRun run = new CancellableGitRun();
+            // a worker that ignores the interruption, like JGit between two cancellation points
+            boolean finished =
+                run.run(
+                    () -> {
+                      while (!stop.get()) {
+                        Thread.yield();
+                      }
+                    },
+                    20);
+            assertThat(finished).isFalse();
+            GitWorkScheduler.holdUntilStopped(run);
+          });
+      Future<?> next =
+          executor.submit(
+              () -> {
+                scheduler.run(log, nextRan::countDown);
+                return null;
+              });
+
+      assertThat(nextRan.await(200, TimeUnit.MILLISECONDS)).isFalse();
+      stop.set(true);
+      next.get(10, TimeUnit.SECONDS);
+      assertThat(nextRan.getCount()).isEqualTo(0);
+    } finally {
+      stop.set(true);
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void shouldShareOneSchedulerPerScope() {
+    Object scope = new Object();
+
+    assertThat(GitWorkScheduler.forScope(scope, 2))
+        .isSameAs(GitWorkScheduler.forScope(scope, 2));
+    assertThat(GitWorkScheduler.forScope(scope, 2))
+        .isNotSameAs(GitWorkScheduler.forScope(new Object(), 2));
+  }
+}
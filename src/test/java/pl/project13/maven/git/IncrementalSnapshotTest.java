@@ -0,0 +1,138 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.EnumSet;
+import java.util.Properties;
+import java.util.Set;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import pl.project13.log.DummyTestLoggerBridge;
+
+/**
+ * Testcases to verify that the {@link IncrementalSnapshot} only reuses unchanged groups.
+ */
+public class IncrementalSnapshotTest {
+  private static final String ID_1 = "de4db35917b268089c81c9ab1b52541bb778f5a0";
+  private static final String ID_2 = "b6a73ed747dd8dc98642d731ddbf09824efb9d48";
+  private static final Set<GitPropertyGroup> GROUPS =
+      EnumSet.of(GitPropertyGroup.COMMIT_METADATA, GitPropertyGroup.TAGS);
+
+  private File dotGitDir;
+  private File snapshotFile;
+
+  @Before
+  public void setUp() throws IOException {
+    dotGitDir = Files.createTempDirectory("git-incremental").toFile();
+    snapshotFile = new File(dotGitDir, "target/snapshot.properties");
+    write("HEAD", "ref: refs/heads/master\n");
+    write("refs/heads/master", ID_1 + "\n");
+    write("refs/tags/v1.0.0", ID_1 + "\n");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(dotGitDir);
+  }
+
+  @Test
+  public void shouldReuseUnchangedGroups() {
+    storeSnapshot("config");
+
+    Properties reusable = snapshot("config").loadReusableProperties();
+
+    assertThat(reusable.getProperty("git.commit.message.short")).isEqualTo("initial");
+    assertThat(reusable.getProperty("git.tags")).isEqualTo("v1.0.0");
+    assertThat(reusable.getProperty("git.dirty")).isNull();
+  }
+
+  @Test
+  public void shouldRecomputeGroupsWhoseInputsChanged() throws IOException {
+    storeSnapshot("config");
+    write("refs/tags/v2.0.0", ID_1 + "\n");
+
+    Properties reusable = snapshot("config").loadReusableProperties();
+    assertThat(reusable.getProperty("git.commit.message.short")).isEqualTo("initial");
+    assertThat(reusable.getProperty("git.tags")).isNull();
+
+    write("refs/heads/master", ID_2 + "\n");
+    assertThat(snapshot("config").loadReusableProperties().isEmpty()).isTrue();
+  }
+
+  @Test
+  public void shouldRecomputeTheHistoryAfterAnUnshallow() throws IOException {
+    write("shallow", ID_1 + "\n");
+    storeSnapshot("config");
+    assertThat(snapshot("config").loadReusableProperties().getProperty("git.tags"))
+        .isEqualTo("v1.0.0");
+
+    Files.delete(new File(dotGitDir, "shallow").toPath());
+
+    Properties reusable = snapshot("config").loadReusableProperties();
+    assertThat(reusable.getProperty("git.commit.message.short")).isEqualTo("initial");
+    assertThat(reusable.getProperty("git.tags")).isNull();
+  }
+
+  @Test
+  public void shouldRecomputeEverythingWhenTheConfigurationChanged() {
+    storeSnapshot("config");
+
+    assertThat(snapshot("other config").loadReusableProperties().isEmpty()).isTrue();
+  }
+
+  @Test
+  public void shouldNotStoreDegradedGroups() {
+    Properties properties = new Properties();
+    properties.setProperty("git.commit.message.short", "initial");
+    properties.setProperty("git.tags", "unavailable");
+    snapshot("config").store(properties, "git.", EnumSet.of(GitPropertyGroup.TAGS));
+
+    Properties reusable = snapshot("config").loadReusableProperties();
+
+    assertThat(reusable.getProperty("git.commit.message.short")).isEqualTo("initial");
+    assertThat(reusable.getProperty("git.tags")).isNull();
+  }
+
+  private void storeSnapshot(String configuration) {
+    Properties properties = new Properties();
+    properties.setProperty("git.commit.message.short", "initial");
+    properties.setProperty("git.tags", "v1.0.0");
+    properties.setProperty("git.dirty", "false");
+    snapshot(configuration).store(properties, "git.", EnumSet.noneOf(GitPropertyGroup.class));
+  }
+
+  private IncrementalSnapshot snapshot(String configuration) {
+    return new IncrementalSnapshot(
+        dotGitDir, snapshotFile, configuration, GROUPS, new DummyTestLoggerBridge());
+  }
+
+  private void write(String path, String content) throws IOException {
+    File file = new File(dotGitDir, path);
+    Files.createDirectories(file.getParentFile().toPath());
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+  }
+}
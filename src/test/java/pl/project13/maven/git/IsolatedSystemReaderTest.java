@@ -0,0 +1,144 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import org.eclipse.jgit.lib.Config;
+import org.eclipse.jgit.storage.file.FileBasedConfig;
+import org.eclipse.jgit.util.FS;
+import org.eclipse.jgit.util.SystemReader;
+import org.junit.Test;
+
+/**
+ * Testcases to verify that the {@link IsolatedSystemReader} works properly.
+ */
+public class IsolatedSystemReaderTest {
+  @Test
+  public void shouldSkipSystemAndUserConfigUntilLastUninstall() throws Exception {
+    SystemReader original = SystemReader.getInstance();
+
+    IsolatedSystemReader.install();
+    IsolatedSystemReader.install();
+    try {
+      SystemReader isolated = SystemReader.getInstance();
+      assertThat(isolated).isNotSameAs(original);
+
+      FileBasedConfig systemConfig = isolated.openSystemConfig(null, FS.DETECTED);
+      systemConfig.load();
+      assertThat(systemConfig.getFile()).isNull();
+      assertThat(systemConfig.getSections()).isEmpty();
+      assertThat(isolated.openUserConfig(null, FS.DETECTED).getFile()).isNull();
+      assertThat(isolated.getHostname()).isEqualTo(original.getHostname());
+
+      IsolatedSystemReader.uninstall();
+      assertThat(SystemReader.getInstance()).isSameAs(isolated);
+    } finally {
+      IsolatedSystemReader.uninstall();
+    }
+    assertThat(SystemReader.getInstance()).isSameAs(original);
+  }
+
+  @Test
+  public void shouldOnlyIsolateTheInstallingThread() throws Exception {
+    SystemReader original = SystemReader.getInstance();
+    File userConfigFile = new File("user.gitconfig");
+    SystemReader other =
+        new DelegatingReader(original) {
+          @Override
+          public FileBasedConfig openUserConfig(Config parent, FS fs) {
+            return new FileBasedConfig(parent, userConfigFile, fs);
+          }
+        };
+    SystemReader.setInstance(other);
+    // a thread that exists already, like the threads of another plugin
+    ExecutorService otherJGitUser = Executors.newSingleThreadExecutor();
+    try {
+      otherJGitUser.submit(() -> { }).get();
+      IsolatedSystemReader.install();
+      try {
+        SystemReader isolated = SystemReader.getInstance();
+        AtomicReference<File> seenByChild = new AtomicReference<>();
+        Thread child =
+            new Thread(() -> seenByChild.set(isolated.openUserConfig(null, FS.DETECTED).getFile()));
+        child.start();
+        child.join();
+        File seenByOther =
+            otherJGitUser.submit(() -> isolated.openUserConfig(null, FS.DETECTED).getFile()).get();
+
+        assertThat(isolated.openUserConfig(null, FS.DETECTED).getFile()).isNull();
+        assertThat(seenByChild.get()).isEqualTo(userConfigFile);
+        assertThat(seenByOther).isEqualTo(userConfigFile);
+      } finally {
+        IsolatedSystemReader.uninstall();
+      }
+      assertThat(SystemReader.getInstance()).isSameAs(other);
+    } finally {
+      otherJGitUser.shutdownNow();
+      SystemReader.setInstance(original);
+    }
+  }
+
+  private abstract static class DelegatingReader extends SystemReader {
+    private final SystemReader delegate;
+
+    DelegatingReader(SystemReader delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public String getHostname() {
+      return delegate.getHostname();
+    }
+
+    @Override
+    public String getenv(String variable) {
+      return delegate.getenv(variable);
+    }
+
+    @Override
+    public String getProperty(String key) {
+      return delegate.getProperty(key);
+    }
+
+    @Override
+    public FileBasedConfig openSystemConfig(Config parent, FS fs) {
+      return delegate.openSystemConfig(parent, fs);
+    }
+
+    @Override
+    public FileBasedConfig openJGitConfig(Config parent, FS fs) {
+      return delegate.openJGitConfig(parent, fs);
+    }
+
+    @Override
+    public long getCurrentTime() {
+      return delegate.getCurrentTime();
+    }
+
+    @Override
+    public int getTimezone(long when) {
+      return delegate.getTimezone(when);
+    }
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+/**
+ * Testcases to verify that the {@link LazyGitProperties} work properly.
+ */
+public class LazyGitPropertiesTest {
+  private final AtomicInteger describeCalls = new AtomicInteger();
+  private final AtomicInteger dirtyCalls = new AtomicInteger();
+
+  private final Properties original = new Properties();
+
+  private LazyGitProperties createProperties() {
+    LazyGitProperties properties = new LazyGitProperties(original);
+    properties.setProperty("git.commit.id.abbrev", "de4db35");
+    properties.addLazyGroup(
+        asList("git.commit.id.describe", "git.commit.id.describe-short"),
+        () -> {
+          describeCalls.incrementAndGet();
+          Properties values = new Properties();
+          values.setProperty("git.commit.id.describe", "v1.0.0-0-gde4db35");
+          values.setProperty("git.commit.id.describe-short", "v1.0.0-0");
+          return values;
+        });
+    properties.addLazyGroup(
+        asList("git.dirty"),
+        () -> {
+          dirtyCalls.incrementAndGet();
+          Properties values = new Properties();
+          values.setProperty("git.dirty", "false");
+          return values;
+        });
+    return properties;
+  }
+
+  @Test
+  public void shouldOnlyComputeTheGroupOfTheRequestedKeyOnce() {
+    LazyGitProperties properties = createProperties();
+
+    assertThat(properties.getProperty("git.commit.id.abbrev")).isEqualTo("de4db35");
+    assertThat(describeCalls.get()).isEqualTo(0);
+
+    assertThat(properties.getProperty("git.commit.id.describe")).isEqualTo("v1.0.0-0-gde4db35");
+    assertThat(properties.get("git.commit.id.describe-short")).isEqualTo("v1.0.0-0");
+    assertThat(describeCalls.get()).isEqualTo(1);
+    assertThat(dirtyCalls.get()).isEqualTo(0);
+    assertThat(properties.hasPendingKeys()).isTrue();
+  }
+
+  @Test
+  public void shouldComputeEverythingWhenIterating() {
+    LazyGitProperties properties = createProperties();
+
+    assertThat(properties.stringPropertyNames())
+        .containsExactlyInAnyOrder(
+            "git.commit.id.abbrev",
+            "git.commit.id.describe",
+            "git.commit.id.describe-short",
+            "git.dirty");
+    assertThat(properties.hasPendingKeys()).isFalse();
+
+    Properties copy = (Properties) properties.clone();
+    assertThat(copy.getProperty("git.dirty")).isEqualTo("false");
+    assertThat(describeCalls.get()).isEqualTo(1);
+    assertThat(dirtyCalls.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldKeepExplicitlySetValues() {
+    LazyGitProperties properties = createProperties();
+    properties.setProperty("git.commit.id.describe", "custom");
+
+    assertThat(properties.getProperty("git.commit.id.describe")).isEqualTo("custom");
+    assertThat(properties.getProperty("git.commit.id.describe-short")).isEqualTo("v1.0.0-0");
+    assertThat(properties.getProperty("git.commit.id.describe")).isEqualTo("custom");
+  }
+
+  @Test
+  public void shouldWriteThroughToTheOriginalProperties() {
+    original.setProperty("project.version", "1.0.0");
+    LazyGitProperties properties = createProperties();
+
+    assertThat(properties.getProperty("project.version")).isEqualTo("1.0.0");
+    assertThat(original.getProperty("git.commit.id.abbrev")).isEqualTo("de4db35");
+    assertThat(original.getProperty("git.commit.id.describe")).isNull();
+
+    properties.getProperty("git.commit.id.describe");
+    properties.remove("project.version");
+
+    assertThat(original.getProperty("git.commit.id.describe")).isEqualTo("v1.0.0-0-gde4db35");
+    assertThat(original.getProperty("git.commit.id.describe-short")).isEqualTo("v1.0.0-0");
+    assertThat(original.getProperty("project.version")).isNull();
+  }
+
+  @Test
+  public void shouldDiscardPendingKeysWithoutComputingThem() {
+    LazyGitProperties properties = createProperties();
+
+    assertThat(properties.remove("git.dirty")).isNull();
+
+    assertThat(dirtyCalls.get()).isEqualTo(0);
+    assertThat(properties.containsKey("git.dirty")).isFalse();
+    assertThat(properties.hasPendingKeys()).isTrue();
+  }
+
+  @Test
+  public void shouldWriteThroughTheDefaultMapMethods() {
+    LazyGitProperties properties = createProperties();
+
+    assertThat(properties.putIfAbsent("git.dirty", "true")).isEqualTo("false");
+    properties.merge("git.commit.id.abbrev", "-dirty", (a, b) -> a + "" + b);
+    properties.computeIfAbsent("git.tags", key -> "v1.0.0");
+    properties.computeIfPresent("git.commit.id.describe-short", (key, value) -> null);
+    properties.replaceAll((key, value) -> value.toString().toUpperCase());
+
+    assertThat(describeCalls.get()).isEqualTo(1);
+    assertThat(original.getProperty("git.commit.id.abbrev")).isEqualTo("DE4DB35-DIRTY");
+    assertThat(original.getProperty("git.tags")).isEqualTo("V1.0.0");
+    assertThat(original.getProperty("git.dirty")).isEqualTo("FALSE");
+    assertThat(original.containsKey("git.commit.id.describe-short")).isFalse();
+    assertThat(properties.containsKey("git.commit.id.describe-short")).isFalse();
+  }
+
+  @Test
+  public void shouldNotAllowChangesThroughTheViews() {
+    LazyGitProperties properties = createProperties();
+
+    assertThatThrownBy(() -> properties.keySet().remove("git.dirty"))
+        .isInstanceOf(UnsupportedOperationException.class)
+        .hasMessageContaining("read-only");
+    assertThatThrownBy(() -> properties.entrySet().iterator().next().setValue("x"))
+        .isInstanceOf(UnsupportedOperationException.class);
+    assertThatThrownBy(() -> properties.values().removeIf(value -> true))
+        .isInstanceOf(UnsupportedOperationException.class);
+    assertThat(properties.getProperty("git.dirty")).isEqualTo("false");
+    assertThat(original.getProperty("git.dirty")).isEqualTo("false");
+  }
+
+  @Test
+  public void shouldNotBlockOtherReadersWhileComputing() throws Exception {
+    CountDownLatch computing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    LazyGitProperties properties = new LazyGitProperties(original);
+    properties.setProperty("git.commit.id.abbrev", "de4db35");
+    properties.addLazyGroup(
+        asList("git.dirty"),
+        () -> {
+          computing.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          Properties values = new Properties();
+          values.setProperty("git.dirty", "false");
+          return values;
+        });
+    Thread reader = new Thread(() -> properties.getProperty("git.dirty"));
+    reader.start();
+    try {
+      computing.await();
+
+      assertThat(properties.getProperty("git.commit.id.abbrev")).isEqualTo("de4db35");
+      properties.setProperty("git.branch", "master");
+    } finally {
+      release.countDown();
+      reader.join();
+    }
+    assertThat(properties.getProperty("git.dirty")).isEqualTo("false");
+    assertThat(properties.getProperty("git.branch")).isEqualTo("master");
+  }
+}
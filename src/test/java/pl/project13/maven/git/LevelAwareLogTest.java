@@ -0,0 +1,126 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import org.junit.Test;
+import pl.project13.log.DummyTestLoggerBridge;
+
+/**
+ * Testcases to verify that the {@link LevelAwareLog} works properly.
+ */
+public class LevelAwareLogTest {
+  @Test
+  public void shouldNotBuildMessagesForDisabledLevels() {
+    DummyTestLoggerBridge delegate = new DummyTestLoggerBridge();
+    LevelAwareLog log = new DisabledLog(delegate);
+
+    LevelAwareLog.info(
+        log,
+        () -> {
+          throw new AssertionError("must not be built");
+        });
+    PropertiesReplacer.logReplacement(log, "git.branch", null, "feature/a", "feature-a");
+
+    assertThat(delegate.getInfos()).isEmpty();
+  }
+
+  @Test
+  public void shouldLogForAnyOtherLog() {
+    DummyTestLoggerBridge log = new DummyTestLoggerBridge();
+
+    PropertiesReplacer.logReplacement(log, "git.branch", "something", "feature/a", "feature-a");
+
+    assertThat(log.getInfos())
+        .containsExactly(
+            "apply replace on property git.branch and save to something:"
+                + " original value 'feature/a' with 'feature-a'");
+  }
+
+  @Test
+  public void shouldNotAllocateLogMessagesWhenDisabled() {
+    java.lang.management.ThreadMXBean threadMxBean = ManagementFactory.getThreadMXBean();
+    assumeTrue(threadMxBean instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threadMxBean;
+    assumeTrue(allocations.isThreadAllocatedMemorySupported());
+    allocations.setThreadAllocatedMemoryEnabled(true);
+    LevelAwareLog log = new DisabledLog(new DummyTestLoggerBridge());
+    String original = "a full commit message that would end up in the log message";
+    String result = "a full commit message that would end up in the log message, replaced";
+    long threadId = Thread.currentThread().getId();
+
+    for (int i = 0; i < 10_000; i++) {
+      PropertiesReplacer.logReplacement(log, "git.commit.message.full", null, original, result);
+    }
+    long before = allocations.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < 100_000; i++) {
+      PropertiesReplacer.logReplacement(log, "git.commit.message.full", null, original, result);
+    }
+    long allocated = allocations.getThreadAllocatedBytes(threadId) - before;
+
+    // a single message would already take more than 100 bytes, allow some measurement noise
+    assertThat(allocated).isLessThan(1024);
+  }
+
+  private static final class DisabledLog implements LevelAwareLog {
+    private final DummyTestLoggerBridge delegate;
+
+    private DisabledLog(DummyTestLoggerBridge delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+      return false;
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+      return false;
+    }
+
+    @Override
+    public void debug(String msg) {
+      delegate.debug(msg);
+    }
+
+    @Override
+    public void info(String msg) {
+      delegate.info(msg);
+    }
+
+    @Override
+    public void warn(String msg) {
+      delegate.warn(msg);
+    }
+
+    @Override
+    public void error(String msg) {
+      delegate.error(msg);
+    }
+
+    @Override
+    public void error(String msg, Throwable t) {
+      delegate.error(msg, t);
+    }
+  }
+}
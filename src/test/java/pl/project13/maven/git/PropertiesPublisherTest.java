@@ -0,0 +1,74 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.Properties;
+import org.junit.Test;
+
+/**
+ * Testcases to verify that the {@link PropertiesPublisher} works properly.
+ */
+public class PropertiesPublisherTest {
+  @Test
+  public void shouldOnlyWriteChangedProperties() {
+    Properties target = new Properties();
+    target.setProperty("git.branch", "master");
+    target.setProperty("other", "value");
+    Properties properties = new Properties();
+    properties.setProperty("git.branch", "master");
+    properties.setProperty("git.commit.id.abbrev", "de4db35");
+
+    int changed = PropertiesPublisher.publish(CompactProperties.of(properties), target);
+
+    assertThat(changed).isEqualTo(1);
+    assertThat(target.getProperty("git.commit.id.abbrev")).isEqualTo("de4db35");
+    assertThat(target.getProperty("other")).isEqualTo("value");
+  }
+
+  @Test
+  public void shouldNotWriteWhenPublishingTheSamePropertiesAgain() {
+    Properties target = new Properties();
+    Properties properties = new Properties();
+    properties.setProperty("git.commit.id.abbrev", "de4db35");
+
+    CompactProperties snapshot = CompactProperties.of(properties);
+
+    assertThat(PropertiesPublisher.publish(snapshot, target)).isEqualTo(1);
+    assertThat(PropertiesPublisher.publish(snapshot, target)).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldOverridePendingLazyProperties() {
+    LazyGitProperties target = new LazyGitProperties(new Properties());
+    target.addLazyGroup(
+        Collections.singletonList("git.dirty"),
+        () -> {
+          throw new AssertionError("must not be computed");
+        });
+    Properties properties = new Properties();
+    properties.setProperty("git.dirty", "false");
+
+    PropertiesPublisher.publish(CompactProperties.of(properties), target);
+
+    assertThat(target.getProperty("git.dirty")).isEqualTo("false");
+  }
+}
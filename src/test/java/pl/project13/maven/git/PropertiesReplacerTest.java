@@ -22,6 +22,10 @@ import static java.util.Arrays.asList;
 import static org.mockito.AdditionalAnswers.returnsFirstArg;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
@@ -222,6 +226,113 @@ public class PropertiesReplacerTest {
     assertEquals(exptecedProperties, actualProperties);
   }
 
+  @Test
+  @Parameters(method = "useRegexReplacement")
+  public void testPerformReplacementWithChainedReplacementsOnEveryProperty(boolean regex) {
+    Properties actualProperties = build("key1", "value1", "key2", "value2");
+
+    List<ReplacementProperty> replacementProperties = new ArrayList<>();
+    replacementProperties.add(
+        new ReplacementProperty(null, null, "value", "another", regex, false, null));
+    // later replacements see the result of the earlier ones
+    replacementProperties.add(
+        new ReplacementProperty(null, null, "another", "third", regex, false, null));
+    replacementProperties.add(
+        new ReplacementProperty("key1", null, "third", "fourth", regex, false, null));
+    replacementProperties.add(new ReplacementProperty(null, null, "1", "", regex, false, null));
+
+    propertiesReplacer.performReplacement(actualProperties, replacementProperties);
+
+    Properties exptecedProperties = build("key1", "fourth", "key2", "third2");
+    assertEquals(exptecedProperties, actualProperties);
+  }
+
+  @Test
+  @Parameters(method = "useRegexReplacement")
+  public void testPerformReplacementOnPropertiesMatchingPattern(boolean regex) {
+    Properties actualProperties =
+        build(
+            "git.commit.user.name",
+            "John Doe",
+            "git.commit.user.email",
+            "John@Doe",
+            "git.build.user.name",
+            "John Doe");
+
+    List<ReplacementProperty> replacementProperties = new ArrayList<>();
+    ReplacementProperty commitUser =
+        new ReplacementProperty(null, null, "John", "Jane", regex, false, null);
+    commitUser.setPropertyPattern("git.commit.user.*");
+    replacementProperties.add(commitUser);
+    ReplacementProperty names =
+        new ReplacementProperty(null, "short", "Doe", "D.", regex, false, null);
+    names.setPropertyPattern("regex:.*\\.name");
+    replacementProperties.add(names);
+
+    propertiesReplacer.performReplacement(actualProperties, replacementProperties);
+
+    Properties exptecedProperties =
+        build(
+            "git.commit.user.name",
+            "Jane Doe",
+            "git.commit.user.name.short",
+            "Jane D.",
+            "git.commit.user.email",
+            "Jane@Doe",
+            "git.build.user.name",
+            "John Doe",
+            "git.build.user.name.short",
+            "John D.");
+    assertEquals(exptecedProperties, actualProperties);
+  }
+
+  @Test
+  public void testPerformReplacementOnlyEvaluatesValuesWithExpressions() throws Exception {
+    PluginParameterExpressionEvaluator pluginParameterExpressionEvaluator =
+        mock(PluginParameterExpressionEvaluator.class);
+    when(pluginParameterExpressionEvaluator.evaluate(anyString())).thenReturn("1.0.0");
+    Properties actualProperties =
+        build("git.commit.message.full", "uses ${project.version}", "git.branch", "master");
+
+    List<ReplacementProperty> replacementProperties = new ArrayList<>();
+    replacementProperties.add(
+        new ReplacementProperty(null, null, "unused", "", false, false, null));
+    new PropertiesReplacer(
+            mock(LogInterface.class),
+            pluginParameterExpressionEvaluator,
+            new ReplacementPatterns(),
+            true)
+        .performReplacement(actualProperties, replacementProperties);
+
+    verify(pluginParameterExpressionEvaluator, times(1)).evaluate("uses ${project.version}");
+    verifyNoMoreInteractions(pluginParameterExpressionEvaluator);
+    Properties exptecedProperties =
+        build("git.commit.message.full", "1.0.0", "git.branch", "master");
+    assertEquals(exptecedProperties, actualProperties);
+  }
+
+  @Test
+  public void testPerformReplacementWithoutEvaluationOfGeneratedValues() throws Exception {
+    PluginParameterExpressionEvaluator pluginParameterExpressionEvaluator =
+        mock(PluginParameterExpressionEvaluator.class);
+    Properties actualProperties = build("git.commit.message.full", "uses ${project.version}");
+
+    List<ReplacementProperty> replacementProperties = new ArrayList<>();
+    replacementProperties.add(
+        new ReplacementProperty(null, null, "uses", "mentions", false, false, null));
+    new PropertiesReplacer(
+            mock(LogInterface.class),
+            pluginParameterExpressionEvaluator,
+            new ReplacementPatterns(),
+            false)
+        .performReplacement(actualProperties, replacementProperties);
+
+    verifyNoInteractions(pluginParameterExpressionEvaluator);
+    Properties exptecedProperties =
+        build("git.commit.message.full", "mentions ${project.version}");
+    assertEquals(exptecedProperties, actualProperties);
+  }
+
   public static Collection<Object[]> testPerformReplacementWithTransformationRule() {
     return Arrays.asList(
         new Object[][] {
@@ -0,0 +1,65 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+import pl.project13.log.DummyTestLoggerBridge;
+
+/**
+ * Testcases to verify that the {@link PropertyGroupBudgets} are parsed properly.
+ */
+public class PropertyGroupBudgetsTest {
+  @Test
+  public void shouldResolveGroupsByTheirConfigName() {
+    assertThat(GitPropertyGroup.fromConfigName("describe")).isEqualTo(GitPropertyGroup.DESCRIBE);
+    assertThat(GitPropertyGroup.fromConfigName("aheadBehind"))
+        .isEqualTo(GitPropertyGroup.AHEAD_BEHIND);
+    assertThat(GitPropertyGroup.fromConfigName("closest-tag"))
+        .isEqualTo(GitPropertyGroup.CLOSEST_TAG);
+    assertThat(GitPropertyGroup.fromConfigName("TOTAL_COMMIT_COUNT"))
+        .isEqualTo(GitPropertyGroup.TOTAL_COMMIT_COUNT);
+    assertThat(GitPropertyGroup.fromConfigName("unknown")).isNull();
+  }
+
+  @Test
+  public void shouldIgnoreInvalidBudgets() {
+    DummyTestLoggerBridge log = new DummyTestLoggerBridge();
+    Map<String, String> config = new HashMap<>();
+    config.put("build", "100");
+    config.put("describe", "soon");
+    config.put("dirty", "0");
+    config.put("noSuchGroup", "100");
+
+    assertThat(PropertyGroupBudgets.parse(config, log)).isNull();
+    assertThat(log.getWarns()).hasSize(3);
+  }
+
+  @Test
+  public void shouldParseValidBudgets() {
+    Map<String, String> config = new HashMap<>();
+    config.put("describe", " 200 ");
+
+    assertThat(PropertyGroupBudgets.parse(config, new DummyTestLoggerBridge())).isNotNull();
+    assertThat(PropertyGroupBudgets.parse(null, new DummyTestLoggerBridge())).isNull();
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+import pl.project13.core.GitCommitIdExecutionException;
+
+/**
+ * Testcases to verify that the {@link ReplacementPatterns} works properly.
+ */
+public class ReplacementPatternsTest {
+  @Test
+  public void shouldCompileEachTokenOnlyOncePerScope() {
+    Object scope = new Object();
+
+    assertThat(ReplacementPatterns.forScope(scope).compile("^([^\\/]*)/"))
+        .isSameAs(ReplacementPatterns.forScope(scope).compile("^([^\\/]*)/"));
+  }
+
+  @Test
+  public void shouldReuseTheMatcherForDifferentContent() {
+    ReplacementPatterns replacementPatterns = new ReplacementPatterns();
+
+    assertThat(replacementPatterns.replaceAll("feature/abc", "^([^/]*)/(.*)$", "$2"))
+        .isEqualTo("abc");
+    assertThat(replacementPatterns.replaceAll("release/1.0", "^([^/]*)/(.*)$", "$1-$2"))
+        .isEqualTo("release-1.0");
+  }
+
+  @Test
+  public void shouldSelectKeysByGlobOrRegex() {
+    ReplacementPatterns replacementPatterns = new ReplacementPatterns();
+
+    assertThat(selects(replacementPatterns, "git.commit.user.*", "git.commit.user.name")).isTrue();
+    assertThat(selects(replacementPatterns, "glob:*.name", "git.build.user.name")).isTrue();
+    assertThat(selects(replacementPatterns, "*.name", "git.commit.id.abbrev")).isFalse();
+    assertThat(selects(replacementPatterns, "git.dirt?", "gitxdirty")).isFalse();
+    assertThat(selects(replacementPatterns, "regex:git\\.(branch|tags)", "git.tags")).isTrue();
+  }
+
+  @Test(expected = GitCommitIdExecutionException.class)
+  public void shouldFailFastOnInvalidPropertyPatterns() throws Exception {
+    ReplacementProperty replacementProperty =
+        new ReplacementProperty(null, null, "token", "", false, false, null);
+    replacementProperty.setPropertyPattern("regex:git.(branch");
+
+    new ReplacementPatterns().precompile(Collections.singletonList(replacementProperty));
+  }
+
+  @Test(expected = GitCommitIdExecutionException.class)
+  public void shouldFailFastOnInvalidRegexTokens() throws Exception {
+    new ReplacementPatterns()
+        .precompile(
+            Arrays.asList(
+                new ReplacementProperty(null, null, "[a-z", "", false, false, null),
+                new ReplacementProperty(null, null, "[a-z", "", true, false, null)));
+  }
+
+  @Test
+  public void shouldIgnoreLiteralTokens() throws Exception {
+    new ReplacementPatterns()
+        .precompile(
+            Collections.singletonList(
+                new ReplacementProperty(null, null, "[a-z", "", false, false, null)));
+  }
+
+  private static boolean selects(
+      ReplacementPatterns replacementPatterns, String propertyPattern, String key) {
+    return replacementPatterns.compileKeySelector(propertyPattern).matcher(key).matches();
+  }
+}
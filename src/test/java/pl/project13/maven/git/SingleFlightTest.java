@@ -0,0 +1,95 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+/**
+ * Testcases to verify that the {@link SingleFlight} works properly.
+ */
+public class SingleFlightTest {
+  @Test
+  public void shouldShareTheResultOfTheLeaderWithConcurrentExecutions() throws Exception {
+    Object scope = new Object();
+    SingleFlight leader = SingleFlight.join(scope, "repository|config");
+    SingleFlight follower = SingleFlight.join(scope, "repository|config");
+    assertThat(leader.isLeader()).isTrue();
+    assertThat(follower.isLeader()).isFalse();
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Properties> shared = executor.submit(() -> follower.await(60_000));
+      Properties properties = new Properties();
+      properties.setProperty("git.commit.id", "abc");
+      leader.complete(properties);
+      properties.setProperty("git.commit.id", "changed by the leader");
+
+      assertThat(shared.get().getProperty("git.commit.id")).isEqualTo("abc");
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void shouldNotCacheResultsOnceTheLeaderCompleted() {
+    Object scope = new Object();
+    SingleFlight.join(scope, "repository|config").complete(new Properties());
+
+    assertThat(SingleFlight.join(scope, "repository|config").isLeader()).isTrue();
+  }
+
+  @Test
+  public void shouldNotShareBetweenDifferentConfigurationsOrScopes() {
+    Object scope = new Object();
+    SingleFlight leader = SingleFlight.join(scope, "repository|config");
+
+    assertThat(SingleFlight.join(scope, "repository|other config").isLeader()).isTrue();
+    assertThat(SingleFlight.join(new Object(), "repository|config").isLeader()).isTrue();
+    leader.complete(null);
+  }
+
+  @Test
+  public void shouldLetFollowersComputeThemselvesIfTheLeaderFailed() {
+    Object scope = new Object();
+    SingleFlight leader = SingleFlight.join(scope, "repository|config");
+    SingleFlight follower = SingleFlight.join(scope, "repository|config");
+
+    leader.complete(null);
+
+    assertThat(follower.await(60_000)).isNull();
+  }
+
+  @Test
+  public void shouldStopWaitingForAStuckLeader() {
+    Object scope = new Object();
+    SingleFlight leader = SingleFlight.join(scope, "repository|config");
+    SingleFlight follower = SingleFlight.join(scope, "repository|config");
+
+    long startTime = System.nanoTime();
+    assertThat(follower.await(50)).isNull();
+    assertThat((System.nanoTime() - startTime) / 1_000_000).isLessThan(10_000L);
+    leader.complete(null);
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collection;
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import org.apache.maven.project.MavenProject;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Start-up benchmark that reports the classes loaded and the time until the first property is
+ * available for each git provider. Class loading only happens once per JVM, so run a single mode
+ * per JVM to get meaningful numbers, e.g. {@code mvn test -Dtest=StartupBenchmarkTest#startup}
+ * after removing the {@code @Ignore}.
+ */
+@RunWith(JUnitParamsRunner.class)
+public class StartupBenchmarkTest extends GitIntegrationTest {
+
+  public static Collection<?> startupParameter() {
+    return Arrays.asList(
+        new Object[][] {
+          {"jgit", false, false},
+          {"native", true, false},
+          {"directRead", false, true},
+        });
+  }
+
+  @Test
+  @Parameters(method = "startupParameter")
+  @Ignore("Start-up benchmark - run this locally, one mode per JVM")
+  public void startup(String mode, boolean useNativeGit, boolean directRead) throws Exception {
+    // given
+    mavenSandbox
+        .withParentProject("my-jar-project", "jar")
+        .withNoChildProject()
+        .withGitRepoInParent(AvailableGitTestRepo.WITH_ONE_COMMIT)
+        .create();
+    MavenProject targetProject = mavenSandbox.getParentProject();
+    setProjectToExecuteMojoIn(targetProject);
+
+    mojo.useNativeGit = useNativeGit;
+    mojo.directRead = directRead;
+    mojo.includeOnlyProperties = Arrays.asList("^git.commit.id.full$", "^git.branch$");
+
+    ClassLoadingMXBean classLoading = ManagementFactory.getClassLoadingMXBean();
+    long classesBefore = classLoading.getTotalLoadedClassCount();
+    long startTime = System.nanoTime();
+
+    // when
+    mojo.execute();
+
+    // then
+    long elapsedInMs = (System.nanoTime() - startTime) / 1_000_000;
+    long classesLoaded = classLoading.getTotalLoadedClassCount() - classesBefore;
+    System.out.println(
+        "[***] mode="
+            + mode
+            + " time to first property: "
+            + elapsedInMs
+            + " ms, classes loaded: "
+            + classesLoaded);
+
+    assertThat(targetProject.getProperties().getProperty("git.commit.id.full")).isNotNull();
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * This file is part of git-commit-id-maven-plugin
+ * Originally invented by Konrad 'ktoso' Malawski <konrad.malawski@java.pl>
+ *
+ * git-commit-id-maven-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * git-commit-id-maven-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with git-commit-id-maven-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.project13.maven.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+import pl.project13.core.GitCommitIdExecutionException;
+
+/**
+ * Testcases to verify that the {@link TransformationPipeline} works properly.
+ */
+public class TransformationPipelineTest {
+  @Test
+  public void shouldApplyOnlyTheRulesOfTheGivenTimeInOrder() {
+    TransformationPipeline pipeline =
+        TransformationPipeline.compile(
+            Arrays.asList(
+                new TransformationRule("BEFORE", "TRIM"),
+                new TransformationRule("AFTER", "UPPER_CASE"),
+                new TransformationRule("BEFORE", "STRIP_PREFIX", "feature/"),
+                new TransformationRule("BEFORE", "TRUNCATE", "6")),
+            TransformationRule.ApplyEnum.BEFORE);
+
+    assertThat(pipeline.perform("  feature/my-Feature ")).isEqualTo("my-Fea");
+    assertThat(pipeline.perform(null)).isNull();
+  }
+
+  @Test
+  public void shouldFusePerCharacterActions() {
+    TransformationPipeline pipeline =
+        TransformationPipeline.compile(
+            Arrays.asList(
+                new TransformationRule("AFTER", "LOWER_CASE"),
+                new TransformationRule("AFTER", "SANITIZE", "a-z0-9"),
+                new TransformationRule("AFTER", "COLLAPSE_WHITESPACE")),
+            TransformationRule.ApplyEnum.AFTER);
+
+    assertThat(pipeline.perform("Feature/ABC_1")).isEqualTo("feature-abc-1");
+    // characters outside of ASCII are transformed one action after the other
+    assertThat(pipeline.perform("F\u00fc\u00dfe")).isEqualTo("f--e");
+    assertThat(pipeline.perform("unchanged")).isSameAs("unchanged");
+  }
+
+  @Test
+  public void shouldSanitizeCharactersOutsideOfAscii() {
+    TransformationPipeline pipeline =
+        TransformationPipeline.compile(
+            Arrays.asList(new TransformationRule("AFTER", "SANITIZE", "a-z\u00fc")),
+            TransformationRule.ApplyEnum.AFTER);
+
+    assertThat(pipeline.perform("\u00fcber stra\u00dfe")).isEqualTo("\u00fcber-stra-e");
+    String allowed = "\u00fcber";
+    assertThat(pipeline.perform(allowed)).isSameAs(allowed);
+    assertThat(TransformationRule.ActionEnum.SANITIZE.perform("a/\u00fc")).isEqualTo("a--");
+    // a surrogate pair is a single character
+    assertThat(pipeline.perform("fix\ud83d\ude00\u00fc")).isEqualTo("fix-\u00fc");
+    assertThat(TransformationRule.ActionEnum.TRIM.compileCharacterAction(null)).isNull();
+  }
+
+  @Test
+  public void shouldCreateDockerTags() {
+    TransformationPipeline pipeline =
+        TransformationPipeline.compile(
+            Arrays.asList(new TransformationRule("AFTER", "DOCKER_TAG")),
+            TransformationRule.ApplyEnum.AFTER);
+
+    assertThat(pipeline.perform("-feature/JIRA-1 fix")).isEqualTo("feature-JIRA-1-fix");
+  }
+
+  @Test
+  public void shouldCollapseWhitespace() {
+    assertThat(TransformationRule.ActionEnum.COLLAPSE_WHITESPACE.perform("a \t\n b  c"))
+        .isEqualTo("a b c");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectTruncateWithoutLength() {
+    TransformationPipeline.compile(
+        Arrays.asList(new TransformationRule("AFTER", "TRUNCATE")),
+        TransformationRule.ApplyEnum.AFTER);
+  }
+
+  @Test(expected = GitCommitIdExecutionException.class)
+  public void shouldFailFastOnInvalidTransformationRules() throws Exception {
+    TransformationPipeline.validate(
+        Collections.singletonList(
+            new ReplacementProperty(
+                null,
+                null,
+                "token",
+                "",
+                false,
+                false,
+                Arrays.asList(new TransformationRule("BEFORE", "SANITIZE", "a-(")))));
+  }
+}